@@ -0,0 +1,141 @@
+package com.eleks.groupservice.client;
+
+import com.eleks.groupservice.dto.UserDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Least recently used cache of users by id. An entry is served as fresh while it is younger than {@code ttlMillis}.
+ * After that it is kept as the last known state of the user until it is older than {@code staleTtlMillis} or
+ * {@code maxSize} entries are cached and a new one is added. Entries older than {@code staleTtlMillis} are dropped
+ * when they are read or when an insert exceeds {@code maxSize}, before any least recently used one. Hits, misses and
+ * evictions are counted in the {@code userservice.cache.*} meters.
+ */
+class UserCache {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final long staleTtlNanos;
+    private final LongSupplier nanoClock;
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter staleHits;
+    private final Counter sizeEvictions;
+    private final Counter expiredEvictions;
+
+    UserCache(int maxSize, long ttlMillis, long staleTtlMillis, MeterRegistry meterRegistry) {
+        this(maxSize, ttlMillis, staleTtlMillis, meterRegistry, System::nanoTime);
+    }
+
+    UserCache(int maxSize, long ttlMillis, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this(maxSize, ttlMillis, ttlMillis, meterRegistry, nanoClock);
+    }
+
+    UserCache(int maxSize, long ttlMillis, long staleTtlMillis, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlMillis * 1_000_000;
+        this.staleTtlNanos = Math.max(ttlMillis, staleTtlMillis) * 1_000_000;
+        this.nanoClock = nanoClock;
+        this.hits = meterRegistry.counter("userservice.cache.gets", "result", "hit");
+        this.misses = meterRegistry.counter("userservice.cache.gets", "result", "miss");
+        this.staleHits = meterRegistry.counter("userservice.cache.gets", "result", "stale");
+        this.sizeEvictions = meterRegistry.counter("userservice.cache.evictions", "cause", "size");
+        this.expiredEvictions = meterRegistry.counter("userservice.cache.evictions", "cause", "expired");
+        Gauge.builder("userservice.cache.size", this, UserCache::size).register(meterRegistry);
+    }
+
+    /**
+     * Puts the cached users into {@code found} and the ids without a fresh entry into {@code missing}. The ids are
+     * expected to be distinct.
+     */
+    synchronized void getAll(Collection<Long> ids, Map<Long, UserDto> found, List<Long> missing) {
+        long now = nanoClock.getAsLong();
+        for (Long id : ids) {
+            Entry entry = entries.get(id);
+            if (entry != null && now - entry.loadedAt >= staleTtlNanos) {
+                entries.remove(id);
+                expiredEvictions.increment();
+                entry = null;
+            }
+            if (entry == null || now - entry.loadedAt >= ttlNanos) {
+                misses.increment();
+                missing.add(id);
+            } else {
+                hits.increment();
+                found.put(id, entry.user);
+            }
+        }
+    }
+
+    /**
+     * Returns the last known users, whether their entries are fresh or not.
+     */
+    synchronized Map<Long, UserDto> getLastKnown(Collection<Long> ids) {
+        long now = nanoClock.getAsLong();
+        Map<Long, UserDto> users = new LinkedHashMap<>();
+        for (Long id : ids) {
+            Entry entry = entries.get(id);
+            if (entry != null && now - entry.loadedAt < staleTtlNanos) {
+                staleHits.increment();
+                users.put(id, entry.user);
+            }
+        }
+        return users;
+    }
+
+    synchronized void putAll(Collection<UserDto> users) {
+        long now = nanoClock.getAsLong();
+        for (UserDto user : users) {
+            if (user.getId() != null) {
+                entries.put(user.getId(), new Entry(user, now));
+            }
+        }
+        if (entries.size() > maxSize) {
+            evictExpired(now);
+        }
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (entries.size() > maxSize) {
+            eldest.next();
+            eldest.remove();
+            sizeEvictions.increment();
+        }
+    }
+
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private void evictExpired(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().loadedAt >= staleTtlNanos) {
+                iterator.remove();
+                expiredEvictions.increment();
+            }
+        }
+    }
+
+    private static class Entry {
+        private final UserDto user;
+        private final long loadedAt;
+
+        private Entry(UserDto user, long loadedAt) {
+            this.user = user;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
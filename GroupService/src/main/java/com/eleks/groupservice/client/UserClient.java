@@ -1,10 +1,13 @@
 package com.eleks.groupservice.client;
 
 import com.eleks.common.security.SecurityPrincipalHolder;
-import com.eleks.common.security.model.LoggedPrincipal;
 import com.eleks.groupservice.dto.UserDto;
 import com.eleks.groupservice.dto.UserSearchDto;
 import com.eleks.groupservice.exception.UserServiceException;
+import com.eleks.groupservice.exception.UserServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -14,9 +17,15 @@ import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
+import javax.annotation.PreDestroy;
+
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
@@ -28,17 +37,39 @@ public class UserClient {
     private final String baseUrl;
     private RestTemplate restTemplate;
     private SecurityPrincipalHolder principalHolder;
+    private final UserCache cache;
+    private final UserLookupBatcher batcher;
+    private final UserServiceCircuitBreaker breaker;
+    private final Semaphore bulkhead;
+    private final Counter bulkheadRejections;
 
     @Autowired
-    public UserClient(RestTemplate restTemplate, @Value("${userservice.url}") String baseUrl, SecurityPrincipalHolder principalHolder) {
+    public UserClient(RestTemplate restTemplate, @Value("${userservice.url}") String baseUrl, SecurityPrincipalHolder principalHolder,
+                      @Value("${userservice.cache.max-size}") int cacheMaxSize,
+                      @Value("${userservice.cache.ttl-ms}") long cacheTtlMillis,
+                      @Value("${userservice.cache.stale-ttl-ms}") long cacheStaleTtlMillis,
+                      @Value("${userservice.batch.window-ms}") long batchWindowMillis,
+                      @Value("${userservice.batch.max-size}") int batchMaxSize,
+                      @Value("${userservice.batch.threads}") int batchThreads,
+                      @Value("${userservice.breaker.failure-threshold}") int breakerFailureThreshold,
+                      @Value("${userservice.breaker.open-ms}") long breakerOpenMillis,
+                      @Value("${userservice.breaker.half-open-probes}") int breakerHalfOpenProbes,
+                      @Value("${userservice.bulkhead.max-concurrent-lookups}") int maxConcurrentLookups,
+                      MeterRegistry meterRegistry) {
         this.baseUrl = baseUrl;
         this.restTemplate = restTemplate;
         this.principalHolder = principalHolder;
+        this.cache = new UserCache(cacheMaxSize, cacheTtlMillis, cacheStaleTtlMillis, meterRegistry);
+        this.batcher = new UserLookupBatcher(batchWindowMillis, batchMaxSize, batchThreads, this::fetchAndCache, meterRegistry);
+        this.breaker = new UserServiceCircuitBreaker(breakerFailureThreshold, breakerOpenMillis, breakerHalfOpenProbes, meterRegistry);
+        this.bulkhead = new Semaphore(maxConcurrentLookups);
+        this.bulkheadRejections = meterRegistry.counter("userservice.bulkhead.rejected");
+        Gauge.builder("userservice.bulkhead.available", bulkhead, Semaphore::availablePermits).register(meterRegistry);
     }
 
     public boolean areUserIdsValid(List<Long> userIds) throws UserServiceException {
         try {
-            return getUsersFromUserService(userIds).size() == userIds.size();
+            return getUsers(userIds).size() == userIds.size();
         } catch (HttpClientErrorException ex) {
             log.info("Client error during request to UserService", ex);
             return false;
@@ -46,16 +77,128 @@ public class UserClient {
     }
 
     public List<UserDto> getListOfUsersByIds(List<Long> userIds) throws UserServiceException {
+        return join(getListOfUsersByIdsAsync(userIds));
+    }
+
+    /**
+     * Returns immediately with the cached users, or with a future completed by the batching executor once the missing
+     * users are fetched. The bearer token is taken from the calling thread.
+     */
+    public CompletableFuture<List<UserDto>> getListOfUsersByIdsAsync(List<Long> userIds) throws UserServiceException {
+        return getUsersAsync(userIds).handle((users, ex) -> {
+            if (ex == null) {
+                return users;
+            }
+            Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+            if (cause instanceof HttpClientErrorException) {
+                log.info("Client error during request to UserService", cause);
+                return Collections.emptyList();
+            }
+            throw ex instanceof CompletionException ? (CompletionException) ex : new CompletionException(ex);
+        });
+    }
+
+    /**
+     * Falls back to the last known users, flagged as stale, when UserService fails or is unavailable. Fails like
+     * {@link #getListOfUsersByIdsAsync(List)} if none of the users is known.
+     */
+    public CompletableFuture<UserLookupResult> getUsersOrLastKnownAsync(List<Long> userIds) {
+        return getListOfUsersByIdsAsync(userIds).handle((users, ex) -> {
+            if (ex == null) {
+                return new UserLookupResult(users, false);
+            }
+            Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+            if (cause instanceof UserServiceException) {
+                Map<Long, UserDto> lastKnown = cache.getLastKnown(new LinkedHashSet<>(userIds));
+                if (!lastKnown.isEmpty()) {
+                    log.warn("Using last known users, UserService call failed: {}", cause.getMessage());
+                    return new UserLookupResult(new ArrayList<>(lastKnown.values()), true);
+                }
+            }
+            throw ex instanceof CompletionException ? (CompletionException) ex : new CompletionException(ex);
+        });
+    }
+
+    /**
+     * Waits for the future and rethrows the runtime exception it was completed with.
+     */
+    public static <T> T join(CompletableFuture<T> future) {
         try {
-            return getUsersFromUserService(userIds);
-        } catch (HttpClientErrorException ex) {
-            log.info("Client error during request to UserService", ex);
-            return Collections.emptyList();
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
         }
     }
 
+    void clearCache() {
+        cache.clear();
+    }
 
+    void resetCircuitBreaker() {
+        breaker.reset();
+    }
 
+    @PreDestroy
+    public void shutdown() {
+        batcher.shutdown();
+    }
+
+    private List<UserDto> getUsers(List<Long> userIds) throws HttpClientErrorException, UserServiceException {
+        return join(getUsersAsync(userIds));
+    }
+
+    private CompletableFuture<List<UserDto>> getUsersAsync(List<Long> userIds) {
+        Set<Long> requestedIds = new LinkedHashSet<>(userIds);
+        Map<Long, UserDto> users = new HashMap<>();
+        List<Long> missingIds = new ArrayList<>();
+        cache.getAll(requestedIds, users, missingIds);
+
+        if (missingIds.isEmpty()) {
+            return CompletableFuture.completedFuture(inRequestedOrder(requestedIds, users));
+        }
+        if (!breaker.isCallPermitted()) {
+            return failed(new UserServiceUnavailableException("UserService is unavailable"));
+        }
+        String jwt = principalHolder.getPrincipal().getJwt();
+        if (!bulkhead.tryAcquire()) {
+            bulkheadRejections.increment();
+            return failed(new UserServiceUnavailableException("Too many concurrent requests to UserService"));
+        }
+
+        CompletableFuture<Map<Long, UserDto>> lookup;
+        try {
+            lookup = batcher.lookup(missingIds, jwt);
+        } catch (RuntimeException ex) {
+            bulkhead.release();
+            throw ex;
+        }
+        return lookup
+                .whenComplete((fetched, ex) -> bulkhead.release())
+                .thenApply(fetched -> {
+                    users.putAll(fetched);
+                    return inRequestedOrder(requestedIds, users);
+                });
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable ex) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(ex);
+        return future;
+    }
+
+    private static List<UserDto> inRequestedOrder(Set<Long> requestedIds, Map<Long, UserDto> users) {
+        List<UserDto> result = new ArrayList<>(users.size());
+        for (Long id : requestedIds) {
+            UserDto user = users.get(id);
+            if (user != null) {
+                result.add(user);
+            }
+        }
+        return result;
+    }
 
 
 
@@ -67,24 +210,48 @@ public class UserClient {
 
 
 
-    private List<UserDto> getUsersFromUserService(List<Long> userIds) throws HttpClientErrorException, UserServiceException {
+
+
+
+    private List<UserDto> fetchAndCache(List<Long> userIds, String jwt) {
+        if (!breaker.tryAcquirePermission()) {
+            throw new UserServiceUnavailableException("UserService is unavailable");
+        }
+        List<UserDto> users;
+        try {
+            users = getUsersFromUserService(userIds, jwt);
+        } catch (HttpClientErrorException ex) {
+            breaker.onSuccess();
+            throw ex;
+        } catch (RuntimeException ex) {
+            breaker.onFailure();
+            throw ex;
+        }
+        breaker.onSuccess();
+        cache.putAll(users);
+        return users;
+    }
+
+    private List<UserDto> getUsersFromUserService(List<Long> userIds, String jwt) throws HttpClientErrorException, UserServiceException {
         try {
             String url = baseUrl + "/users/search";
             UserSearchDto requestDto = new UserSearchDto(userIds);
-            HttpEntity<UserSearchDto> requestEntity = new HttpEntity<>(requestDto, getHeaders());
+            HttpEntity<UserSearchDto> requestEntity = new HttpEntity<>(requestDto, getHeaders(jwt));
 
             UserDto[] responseEntity = restTemplate.exchange(url, HttpMethod.POST, requestEntity, UserDto[].class).getBody();
             return isNull(responseEntity) ? emptyList() : asList(responseEntity);
         } catch (HttpServerErrorException ex) {
             log.info("Client error during request to UserService", ex);
             throw new UserServiceException("Server error during request to UserService");
+        } catch (ResourceAccessException ex) {
+            log.info("UserService is not reachable", ex);
+            throw new UserServiceUnavailableException("UserService is unavailable");
         }
     }
 
-    private HttpHeaders getHeaders() {
+    private HttpHeaders getHeaders(String jwt) {
         HttpHeaders headers = new HttpHeaders();
-        LoggedPrincipal principal = principalHolder.getPrincipal();
-        headers.setBearerAuth(principal.getJwt());
+        headers.setBearerAuth(jwt);
         return headers;
     }
 }
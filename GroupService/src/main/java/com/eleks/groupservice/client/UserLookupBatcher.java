@@ -0,0 +1,158 @@
+package com.eleks.groupservice.client;
+
+import com.eleks.groupservice.dto.UserDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Collects user lookups arriving within {@code windowMillis} into one batch, which is sent as soon as the window
+ * closes or {@code maxBatchSize} ids are collected. Batches are kept per bearer token, so every request is sent with
+ * the token of all its callers and a rejected token only fails the lookups made with it. An id which is already
+ * waiting in a batch or being fetched with the same token joins that lookup instead of being requested again.
+ */
+class UserLookupBatcher {
+
+    private final long windowMillis;
+    private final int maxBatchSize;
+    private final BiFunction<List<Long>, String, List<UserDto>> fetcher;
+    private final ScheduledExecutorService executor;
+
+    private final Map<String, Map<Long, CompletableFuture<UserDto>>> inFlight = new HashMap<>();
+    private final Map<String, Batch> pending = new HashMap<>();
+
+    private final DistributionSummary batchSizes;
+    private final Counter coalescedIds;
+
+    UserLookupBatcher(long windowMillis, int maxBatchSize, int threads,
+                      BiFunction<List<Long>, String, List<UserDto>> fetcher, MeterRegistry meterRegistry) {
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.fetcher = fetcher;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("user-lookup-");
+        threadFactory.setDaemon(true);
+        this.executor = new ScheduledThreadPoolExecutor(threads, threadFactory);
+        this.batchSizes = DistributionSummary.builder("userservice.batch.size")
+                .baseUnit("ids")
+                .register(meterRegistry);
+        this.coalescedIds = meterRegistry.counter("userservice.batch.coalesced");
+    }
+
+    /**
+     * Completes with the found users by id. Ids which UserService doesn't know are left out.
+     */
+    CompletableFuture<Map<Long, UserDto>> lookup(Collection<Long> ids, String jwt) {
+        Map<Long, CompletableFuture<UserDto>> lookups = new LinkedHashMap<>();
+        List<Batch> fullBatches = new ArrayList<>();
+        synchronized (this) {
+            for (Long id : ids) {
+                CompletableFuture<UserDto> lookup = inFlight.getOrDefault(jwt, Collections.emptyMap()).get(id);
+                if (lookup != null) {
+                    coalescedIds.increment();
+                } else {
+                    lookup = enqueue(id, jwt, fullBatches);
+                    inFlight.computeIfAbsent(jwt, token -> new HashMap<>()).put(id, lookup);
+                }
+                lookups.put(id, lookup);
+            }
+        }
+        fullBatches.forEach(batch -> executor.execute(() -> send(batch)));
+
+        return CompletableFuture.allOf(lookups.values().toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> {
+                    Map<Long, UserDto> users = new LinkedHashMap<>();
+                    lookups.forEach((id, lookup) -> {
+                        UserDto user = lookup.join();
+                        if (user != null) {
+                            users.put(id, user);
+                        }
+                    });
+                    return users;
+                });
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private CompletableFuture<UserDto> enqueue(Long id, String jwt, List<Batch> fullBatches) {
+        Batch batch = pending.get(jwt);
+        if (batch == null) {
+            Batch opened = new Batch(jwt);
+            pending.put(jwt, opened);
+            executor.schedule(() -> {
+                if (claim(opened)) {
+                    send(opened);
+                }
+            }, windowMillis, TimeUnit.MILLISECONDS);
+            batch = opened;
+        }
+        CompletableFuture<UserDto> lookup = new CompletableFuture<>();
+        batch.lookups.put(id, lookup);
+        if (batch.lookups.size() >= maxBatchSize) {
+            batch.claimed = true;
+            fullBatches.add(batch);
+            pending.remove(jwt);
+        }
+        return lookup;
+    }
+
+    private synchronized boolean claim(Batch batch) {
+        if (batch.claimed) {
+            return false;
+        }
+        batch.claimed = true;
+        pending.remove(batch.jwt, batch);
+        return true;
+    }
+
+    private void send(Batch batch) {
+        List<Long> ids = new ArrayList<>(batch.lookups.keySet());
+        batchSizes.record(ids.size());
+        try {
+            Map<Long, UserDto> users = new HashMap<>();
+            for (UserDto user : fetcher.apply(ids, batch.jwt)) {
+                users.put(user.getId(), user);
+            }
+            release(batch);
+            batch.lookups.forEach((id, lookup) -> lookup.complete(users.get(id)));
+        } catch (RuntimeException ex) {
+            release(batch);
+            batch.lookups.values().forEach(lookup -> lookup.completeExceptionally(ex));
+        }
+    }
+
+    private synchronized void release(Batch batch) {
+        Map<Long, CompletableFuture<UserDto>> inFlightOfToken = inFlight.get(batch.jwt);
+        if (inFlightOfToken != null) {
+            batch.lookups.forEach(inFlightOfToken::remove);
+            if (inFlightOfToken.isEmpty()) {
+                inFlight.remove(batch.jwt);
+            }
+        }
+    }
+
+    private static class Batch {
+        private final String jwt;
+        private final Map<Long, CompletableFuture<UserDto>> lookups = new LinkedHashMap<>();
+        private boolean claimed;
+
+        private Batch(String jwt) {
+            this.jwt = jwt;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.eleks.groupservice.client;
+
+import com.eleks.groupservice.dto.UserDto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class UserLookupResult {
+    private List<UserDto> users;
+    private boolean stale;
+}
@@ -0,0 +1,121 @@
+package com.eleks.groupservice.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Opens after {@code failureThreshold} consecutive failed calls and rejects calls for {@code openMillis}. Then it lets
+ * up to {@code halfOpenProbes} calls through: the first successful probe closes it again, a failed one reopens it.
+ * The current state is published as {@code userservice.breaker.state} gauges, one per state, with value 1 for the
+ * current one.
+ */
+class UserServiceCircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final int halfOpenProbes;
+    private final LongSupplier nanoClock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private int probesInFlight;
+
+    private final Counter successfulCalls;
+    private final Counter failedCalls;
+    private final Counter rejectedCalls;
+
+    UserServiceCircuitBreaker(int failureThreshold, long openMillis, int halfOpenProbes, MeterRegistry meterRegistry) {
+        this(failureThreshold, openMillis, halfOpenProbes, meterRegistry, System::nanoTime);
+    }
+
+    UserServiceCircuitBreaker(int failureThreshold, long openMillis, int halfOpenProbes, MeterRegistry meterRegistry,
+                              LongSupplier nanoClock) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openMillis * 1_000_000;
+        this.halfOpenProbes = halfOpenProbes;
+        this.nanoClock = nanoClock;
+        this.successfulCalls = meterRegistry.counter("userservice.breaker.calls", "outcome", "success");
+        this.failedCalls = meterRegistry.counter("userservice.breaker.calls", "outcome", "failure");
+        this.rejectedCalls = meterRegistry.counter("userservice.breaker.calls", "outcome", "rejected");
+        for (State gaugeState : State.values()) {
+            Gauge.builder("userservice.breaker.state", this, breaker -> breaker.getState() == gaugeState ? 1 : 0)
+                    .tag("state", gaugeState.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Tells whether a call could be let through now without taking a half-open probe, so callers can fail fast
+     * before queueing any work.
+     */
+    synchronized boolean isCallPermitted() {
+        if (state == State.OPEN && !openIntervalPassed()) {
+            rejectedCalls.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Must be followed by {@link #onSuccess()} or {@link #onFailure()} when it returns {@code true}.
+     */
+    synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (!openIntervalPassed()) {
+                rejectedCalls.increment();
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probesInFlight = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight >= halfOpenProbes) {
+                rejectedCalls.increment();
+                return false;
+            }
+            probesInFlight++;
+        }
+        return true;
+    }
+
+    synchronized void onSuccess() {
+        successfulCalls.increment();
+        if (state != State.OPEN) {
+            state = State.CLOSED;
+            consecutiveFailures = 0;
+        }
+    }
+
+    synchronized void onFailure() {
+        failedCalls.increment();
+        if (state == State.OPEN) {
+            return;
+        }
+        if (state == State.HALF_OPEN || ++consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = nanoClock.getAsLong();
+            consecutiveFailures = 0;
+        }
+    }
+
+    synchronized void reset() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    private boolean openIntervalPassed() {
+        return nanoClock.getAsLong() - openedAt >= openNanos;
+    }
+}
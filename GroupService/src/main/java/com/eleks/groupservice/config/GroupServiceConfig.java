@@ -3,21 +3,25 @@ package com.eleks.groupservice.config;
 import com.eleks.common.config.SecurityConfig;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.web.client.RestTemplate;
 import springfox.documentation.builders.PathSelectors;
 import springfox.documentation.builders.RequestHandlerSelectors;
 import springfox.documentation.spi.DocumentationType;
 import springfox.documentation.spring.web.plugins.Docket;
 import springfox.documentation.swagger2.annotations.EnableSwagger2;
 
+import java.util.concurrent.ForkJoinPool;
+
 @Configuration
 @EnableSwagger2
 @EnableWebSecurity
+@EnableScheduling
 @Import(value = SecurityConfig.class)
 @ComponentScan(basePackages = "com.eleks")
 public class GroupServiceConfig {
@@ -29,9 +33,9 @@ public class GroupServiceConfig {
         return mapper;
     }
 
-    @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool balanceCalculationPool(@Value("${balance.calculation.pool-size}") int poolSize) {
+        return new ForkJoinPool(poolSize);
     }
 
     @Bean
@@ -0,0 +1,92 @@
+package com.eleks.groupservice.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * Pooled HTTP client used for calls to UserService. Idle and expired connections are closed by a background
+ * thread of the client, and the pool state is published as {@code userservice.http.pool.*} gauges.
+ */
+@Configuration
+public class UserServiceHttpClientConfig {
+
+    @Bean
+    public PoolingHttpClientConnectionManager userServiceConnectionManager(
+            @Value("${userservice.url}") String baseUrl,
+            @Value("${userservice.http.max-connections}") int maxConnections,
+            @Value("${userservice.http.max-connections-per-route}") int maxConnectionsPerRoute,
+            @Value("${userservice.http.max-connections-to-userservice}") int maxConnectionsToUserService,
+            @Value("${userservice.http.keep-alive-ms}") long keepAliveMillis,
+            MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager =
+                new PoolingHttpClientConnectionManager(keepAliveMillis, TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        connectionManager.setMaxPerRoute(new HttpRoute(HttpHost.create(baseUrl)), maxConnectionsToUserService);
+
+        registerPoolGauge(meterRegistry, connectionManager, "leased", PoolStats::getLeased);
+        registerPoolGauge(meterRegistry, connectionManager, "available", PoolStats::getAvailable);
+        registerPoolGauge(meterRegistry, connectionManager, "pending", PoolStats::getPending);
+        registerPoolGauge(meterRegistry, connectionManager, "max", PoolStats::getMax);
+        return connectionManager;
+    }
+
+    @Bean
+    public CloseableHttpClient userServiceHttpClient(
+            PoolingHttpClientConnectionManager userServiceConnectionManager,
+            @Value("${userservice.http.connect-timeout-ms}") int connectTimeoutMillis,
+            @Value("${userservice.http.read-timeout-ms}") int readTimeoutMillis,
+            @Value("${userservice.http.connection-request-timeout-ms}") int connectionRequestTimeoutMillis,
+            @Value("${userservice.http.keep-alive-ms}") long keepAliveMillis) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeoutMillis)
+                .setSocketTimeout(readTimeoutMillis)
+                .setConnectionRequestTimeout(connectionRequestTimeoutMillis)
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(userServiceConnectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(keepAliveStrategy(keepAliveMillis))
+                .evictExpiredConnections()
+                .evictIdleConnections(keepAliveMillis, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @Bean
+    public RestTemplate restTemplate(CloseableHttpClient userServiceHttpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(userServiceHttpClient));
+    }
+
+    static ConnectionKeepAliveStrategy keepAliveStrategy(long keepAliveMillis) {
+        return (response, context) -> {
+            long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAliveMillis) : keepAliveMillis;
+        };
+    }
+
+    private static void registerPoolGauge(MeterRegistry meterRegistry, PoolingHttpClientConnectionManager connectionManager,
+                                          String state, ToIntFunction<PoolStats> value) {
+        Gauge.builder("userservice.http.pool.connections", connectionManager,
+                manager -> value.applyAsInt(manager.getTotalStats()))
+                .tag("state", state)
+                .register(meterRegistry);
+    }
+}
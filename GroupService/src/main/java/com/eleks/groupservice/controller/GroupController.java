@@ -1,10 +1,13 @@
 package com.eleks.groupservice.controller;
 
 import com.eleks.groupservice.dto.*;
+import com.eleks.groupservice.exception.GroupVersionMismatchException;
 import com.eleks.groupservice.exception.ResourceNotFoundException;
 import com.eleks.groupservice.service.GroupService;
 import io.swagger.annotations.Api;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
@@ -27,14 +30,16 @@ public class GroupController {
     }
 
     @GetMapping("/groups/{id}")
-    public GroupResponseDto getGroup(@PathVariable Long id) {
-        return service.getGroup(id)
-                .orElseThrow(() -> new ResourceNotFoundException("group with this id does't exist"));
+    public ResponseEntity<GroupResponseDto> getGroup(@PathVariable Long id) {
+        return withETag(service.getGroup(id)
+                .orElseThrow(() -> new ResourceNotFoundException("group with this id does't exist")));
     }
 
     @PutMapping("/groups/{id}")
-    public GroupResponseDto editGroup(@PathVariable Long id, @Valid @RequestBody GroupRequestDto group) {
-        return service.editGroup(id, group);
+    public ResponseEntity<GroupResponseDto> editGroup(@PathVariable Long id,
+                                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                      @Valid @RequestBody GroupRequestDto group) {
+        return withETag(service.editGroup(id, toVersion(ifMatch), group));
     }
 
     @DeleteMapping("/groups/{id}")
@@ -46,4 +51,42 @@ public class GroupController {
     public List<StatusResponseDto> getGroupMembersStatus(@PathVariable Long groupId, @PathVariable Long userId) {
         return service.getGroupMembersStatus(groupId, userId);
     }
+
+    @GetMapping("/groups/{groupId}/settlement")
+    public SettlementResponseDto getSettlement(@PathVariable Long groupId) {
+        return service.getSettlement(groupId);
+    }
+
+    @GetMapping("/groups/{groupId}/balances")
+    public GroupBalancesResponseDto getGroupBalances(@PathVariable Long groupId) {
+        return service.getGroupBalances(groupId);
+    }
+
+    @GetMapping("/users/{userId}/balances")
+    public List<UserGroupBalanceDto> getUserBalances(@PathVariable Long userId) {
+        return service.getUserBalances(userId);
+    }
+
+    private static ResponseEntity<GroupResponseDto> withETag(GroupResponseDto group) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (group.getVersion() != null) {
+            response.eTag(String.valueOf(group.getVersion()));
+        }
+        return response.body(group);
+    }
+
+    private static Long toVersion(String ifMatch) throws GroupVersionMismatchException {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        try {
+            return Long.valueOf(tag.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            throw new GroupVersionMismatchException("If-Match doesn't match any group version");
+        }
+    }
 }
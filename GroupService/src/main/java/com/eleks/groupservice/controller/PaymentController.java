@@ -1,27 +1,40 @@
 package com.eleks.groupservice.controller;
 
 import com.eleks.common.security.SecurityPrincipalHolder;
+import com.eleks.groupservice.dto.PaymentBatchResponseDto;
 import com.eleks.groupservice.dto.PaymentRequestDto;
 import com.eleks.groupservice.dto.PaymentResponseDto;
+import com.eleks.groupservice.dto.PaymentsPageResponseDto;
 import com.eleks.groupservice.exception.ResourceNotFoundException;
 import com.eleks.groupservice.service.PaymentService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import io.swagger.annotations.Api;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @RestController
 @Api(value = "payment", description = "Payment API")
 public class PaymentController {
+    static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
     private PaymentService service;
     private SecurityPrincipalHolder principalHolder;
+    private ObjectWriter paymentWriter;
 
     @Autowired
-    public PaymentController(PaymentService service, SecurityPrincipalHolder principalHolder) {
+    public PaymentController(PaymentService service, SecurityPrincipalHolder principalHolder, ObjectMapper objectMapper) {
         this.service = service;
         this.principalHolder = principalHolder;
+        this.paymentWriter = objectMapper.writerFor(PaymentResponseDto.class);
     }
 
     @PostMapping("/groups/{groupId}/payments")
@@ -30,6 +43,12 @@ public class PaymentController {
         return service.createPayment(groupId, loggedUserId, requestDto);
     }
 
+    @PostMapping("/groups/{groupId}/payments:batch")
+    public PaymentBatchResponseDto createPayments(@PathVariable Long groupId, @RequestBody List<PaymentRequestDto> requestDtos) {
+        Long loggedUserId = principalHolder.getPrincipal().getUserId();
+        return service.createPayments(groupId, loggedUserId, requestDtos);
+    }
+
     @GetMapping("/groups/{groupId}/payments/{paymentId}")
     public PaymentResponseDto getPayment(@PathVariable Long groupId, @PathVariable Long paymentId) {
         return service.getPayment(groupId, paymentId)
@@ -42,6 +61,33 @@ public class PaymentController {
                 .orElseThrow(() -> new ResourceNotFoundException("group does't exist"));
     }
 
+    @GetMapping(value = "/groups/{groupId}/payments", params = "limit")
+    public PaymentsPageResponseDto getPaymentsPage(@PathVariable Long groupId, @RequestParam int limit,
+                                                   @RequestParam(required = false) String after) {
+        return service.getPaymentsPage(groupId, after, limit)
+                .orElseThrow(() -> new ResourceNotFoundException("group does't exist"));
+    }
+
+    @GetMapping(value = "/groups/{groupId}/payments", produces = APPLICATION_NDJSON_VALUE)
+    public void streamPayments(@PathVariable Long groupId, HttpServletResponse response) throws IOException {
+        // the content type is set only once there is something to write, so a missing group is reported as JSON
+        AtomicBoolean started = new AtomicBoolean();
+        service.streamPayments(groupId, payment -> {
+            try {
+                if (!started.getAndSet(true)) {
+                    response.setContentType(APPLICATION_NDJSON_VALUE);
+                }
+                OutputStream out = response.getOutputStream();
+                out.write(paymentWriter.writeValueAsBytes(payment));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        response.setContentType(APPLICATION_NDJSON_VALUE);
+        response.getOutputStream().flush();
+    }
+
     @DeleteMapping("/groups/{groupId}/payments/{paymentId}")
     public void deletePayment(@PathVariable Long groupId, @PathVariable Long paymentId) {
         service.deletePayment(groupId, paymentId);
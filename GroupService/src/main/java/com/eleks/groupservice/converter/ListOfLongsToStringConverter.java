@@ -1,36 +0,0 @@
-package com.eleks.groupservice.converter;
-
-import javax.persistence.AttributeConverter;
-import javax.persistence.Converter;
-import java.util.Arrays;
-import java.util.List;
-import java.util.stream.Collectors;
-
-import static java.util.Objects.isNull;
-import static org.springframework.util.CollectionUtils.isEmpty;
-
-@Converter
-public class ListOfLongsToStringConverter implements AttributeConverter<List<Long>, String> {
-
-    private static final String SPLIT_CHAR = ";";
-
-    @Override
-    public String convertToDatabaseColumn(List<Long> attribute) {
-        return isEmpty(attribute) ? null : attribute.stream()
-                .map(String::valueOf)
-                .collect(Collectors.joining(SPLIT_CHAR));
-    }
-
-    @Override
-    public List<Long> convertToEntityAttribute(String dbData) {
-        if (isNull(dbData) || dbData.isEmpty())
-            return null;
-        try {
-            return Arrays.stream(dbData.split(SPLIT_CHAR))
-                    .map(Long::valueOf)
-                    .collect(Collectors.toList());
-        } catch (NumberFormatException ex) {
-            return null;
-        }
-    }
-}
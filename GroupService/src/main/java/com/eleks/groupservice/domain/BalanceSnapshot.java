@@ -0,0 +1,31 @@
+package com.eleks.groupservice.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.time.Instant;
+
+/**
+ * Checkpoint of the pairwise balances of a group which covers all its payments up to {@code lastPaymentId}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity(name = "balance_snapshot")
+public class BalanceSnapshot {
+    @Id
+    @Column(name = "group_id")
+    private Long groupId;
+
+    @Column(name = "last_payment_id", nullable = false)
+    private Long lastPaymentId;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
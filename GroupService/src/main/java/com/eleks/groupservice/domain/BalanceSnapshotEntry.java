@@ -0,0 +1,38 @@
+package com.eleks.groupservice.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+
+/**
+ * Amount in minor units which {@code userB} owed {@code userA} at the time of the group snapshot. Pairs are stored
+ * in both directions, the same way as in {@link GroupBalance}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity(name = "balance_snapshot_entry")
+@IdClass(GroupBalanceId.class)
+public class BalanceSnapshotEntry {
+    @Id
+    @Column(name = "group_id")
+    private Long groupId;
+
+    @Id
+    @Column(name = "user_a")
+    private Long userA;
+
+    @Id
+    @Column(name = "user_b")
+    private Long userB;
+
+    @Column(name = "amount", nullable = false)
+    private long amount;
+}
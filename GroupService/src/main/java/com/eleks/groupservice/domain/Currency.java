@@ -1,5 +1,25 @@
 package com.eleks.groupservice.domain;
 
+import java.math.BigDecimal;
+
 public enum Currency {
-    UAH, USD, EUR;
+    UAH(2), USD(2), EUR(2);
+
+    private final int exponent;
+
+    Currency(int exponent) {
+        this.exponent = exponent;
+    }
+
+    public int getExponent() {
+        return exponent;
+    }
+
+    public long toMinorUnits(BigDecimal amount) {
+        return amount.movePointRight(exponent).longValueExact();
+    }
+
+    public BigDecimal toMajorUnits(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, exponent);
+    }
 }
@@ -1,10 +1,12 @@
 package com.eleks.groupservice.domain;
 
-import com.eleks.groupservice.converter.ListOfLongsToStringConverter;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -29,12 +31,19 @@ public class Group {
     @Column(name = "currency", nullable = false)
     private Currency currency;
 
-    @Column(name = "members")
-    @Convert(converter = ListOfLongsToStringConverter.class)
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "group_member", joinColumns = @JoinColumn(name = "group_id"))
+    @Column(name = "user_id", nullable = false)
+    @Fetch(FetchMode.SUBSELECT)
     @Builder.Default
-    private List<Long> members = new ArrayList<>();
+    private Set<Long> members = new HashSet<>();
 
-    @OneToMany(cascade = CascadeType.ALL, mappedBy = "group", fetch = FetchType.EAGER)
+    @OneToMany(cascade = CascadeType.ALL, mappedBy = "group")
     @Builder.Default
     private List<Payment> payments = new ArrayList<>();
-}
\ No newline at end of file
+}
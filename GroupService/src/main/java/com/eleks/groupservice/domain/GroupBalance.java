@@ -0,0 +1,38 @@
+package com.eleks.groupservice.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+
+/**
+ * Amount in minor units which {@code userB} owes {@code userA} in the group. Every pair is stored in both directions,
+ * so the row (a, b) always holds the negated amount of the row (b, a).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity(name = "group_balance")
+@IdClass(GroupBalanceId.class)
+public class GroupBalance {
+    @Id
+    @Column(name = "group_id")
+    private Long groupId;
+
+    @Id
+    @Column(name = "user_a")
+    private Long userA;
+
+    @Id
+    @Column(name = "user_b")
+    private Long userB;
+
+    @Column(name = "amount", nullable = false)
+    private long amount;
+}
@@ -0,0 +1,16 @@
+package com.eleks.groupservice.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupBalanceId implements Serializable {
+    private Long groupId;
+    private Long userA;
+    private Long userB;
+}
@@ -0,0 +1,219 @@
+package com.eleks.groupservice.domain;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable set of ids backed by a sorted {@code long[]} without duplicates. Membership checks are binary searches
+ * and set operations merge the two sorted arrays, so no boxed ids are kept in memory.
+ */
+public final class LongIdSet extends AbstractSet<Long> {
+
+    private static final LongIdSet EMPTY = new LongIdSet(new long[0]);
+
+    private final long[] ids;
+
+    private LongIdSet(long[] ids) {
+        this.ids = ids;
+    }
+
+    public static LongIdSet empty() {
+        return EMPTY;
+    }
+
+    public static LongIdSet of(long... ids) {
+        long[] sorted = Arrays.copyOf(ids, ids.length);
+        Arrays.sort(sorted);
+        return fromSorted(sorted);
+    }
+
+    public static LongIdSet copyOf(Collection<Long> ids) {
+        if (ids instanceof LongIdSet) {
+            return (LongIdSet) ids;
+        }
+        long[] sorted = new long[ids.size()];
+        int size = 0;
+        for (Long id : ids) {
+            sorted[size++] = id;
+        }
+        Arrays.sort(sorted);
+        return fromSorted(sorted);
+    }
+
+    private static LongIdSet fromSorted(long[] sorted) {
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (size == 0 || sorted[size - 1] != sorted[i]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return trimmed(sorted, size);
+    }
+
+    @Override
+    public int size() {
+        return ids.length;
+    }
+
+    public long get(int index) {
+        return ids[index];
+    }
+
+    public boolean contains(long id) {
+        return Arrays.binarySearch(ids, id) >= 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Long && contains(((Long) o).longValue());
+    }
+
+    /**
+     * Returns the position of the id in ascending order, or -1 if the set doesn't contain it.
+     */
+    public int indexOf(long id) {
+        int index = Arrays.binarySearch(ids, id);
+        return index < 0 ? -1 : index;
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> other) {
+        if (!(other instanceof LongIdSet)) {
+            return super.containsAll(other);
+        }
+        long[] otherIds = ((LongIdSet) other).ids;
+        int i = 0;
+        for (long id : otherIds) {
+            while (i < ids.length && ids[i] < id) {
+                i++;
+            }
+            if (i == ids.length || ids[i] != id) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public LongIdSet union(LongIdSet other) {
+        long[] result = new long[ids.length + other.ids.length];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < ids.length || j < other.ids.length) {
+            if (j == other.ids.length || (i < ids.length && ids[i] < other.ids[j])) {
+                result[size++] = ids[i++];
+            } else if (i == ids.length || other.ids[j] < ids[i]) {
+                result[size++] = other.ids[j++];
+            } else {
+                result[size++] = ids[i++];
+                j++;
+            }
+        }
+        return trimmed(result, size);
+    }
+
+    public LongIdSet intersect(LongIdSet other) {
+        long[] result = new long[Math.min(ids.length, other.ids.length)];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < ids.length && j < other.ids.length) {
+            if (ids[i] < other.ids[j]) {
+                i++;
+            } else if (other.ids[j] < ids[i]) {
+                j++;
+            } else {
+                result[size++] = ids[i++];
+                j++;
+            }
+        }
+        return trimmed(result, size);
+    }
+
+    public LongIdSet difference(LongIdSet other) {
+        long[] result = new long[ids.length];
+        int j = 0;
+        int size = 0;
+        for (long id : ids) {
+            while (j < other.ids.length && other.ids[j] < id) {
+                j++;
+            }
+            if (j == other.ids.length || other.ids[j] != id) {
+                result[size++] = id;
+            }
+        }
+        return trimmed(result, size);
+    }
+
+    public LongIdSet without(long id) {
+        int index = Arrays.binarySearch(ids, id);
+        if (index < 0) {
+            return this;
+        }
+        long[] result = new long[ids.length - 1];
+        System.arraycopy(ids, 0, result, 0, index);
+        System.arraycopy(ids, index + 1, result, index, ids.length - index - 1);
+        return trimmed(result, result.length);
+    }
+
+    public long[] toLongArray() {
+        return Arrays.copyOf(ids, ids.length);
+    }
+
+    public List<Long> toList() {
+        List<Long> list = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+
+    @Override
+    public Iterator<Long> iterator() {
+        return new Iterator<Long>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < ids.length;
+            }
+
+            @Override
+            public Long next() {
+                if (index == ids.length) {
+                    throw new NoSuchElementException();
+                }
+                return ids[index++];
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof LongIdSet) {
+            return Arrays.equals(ids, ((LongIdSet) o).ids);
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (long id : ids) {
+            hash += Long.hashCode(id);
+        }
+        return hash;
+    }
+
+    private static LongIdSet trimmed(long[] ids, int size) {
+        if (size == 0) {
+            return EMPTY;
+        }
+        return new LongIdSet(size == ids.length ? ids : Arrays.copyOf(ids, size));
+    }
+}
@@ -1,19 +1,18 @@
 package com.eleks.groupservice.domain;
 
-import com.eleks.groupservice.converter.ListOfLongsToStringConverter;
-import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
-import java.sql.Timestamp;
 import java.time.Instant;
-import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
 
 @Data
@@ -23,19 +22,26 @@ import java.util.Set;
 @Entity(name = "payment")
 public class Payment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "payment_id")
+    @GenericGenerator(name = "payment_id", strategy = "org.hibernate.id.enhanced.TableGenerator", parameters = {
+            @Parameter(name = "table_name", value = "id_generator"),
+            @Parameter(name = "segment_value", value = "payment"),
+            @Parameter(name = "increment_size", value = "500"),
+            @Parameter(name = "optimizer", value = "pooled-lo")})
     private Long id;
 
     @Column(name = "payment_description", nullable = false, length = 200)
     private String paymentDescription;
 
     @Column(name = "price", nullable = false)
-    private Double price;
+    private long price;
 
-    @Column(name = "co_payers")
-    @Convert(converter = ListOfLongsToStringConverter.class)
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "payment_co_payer", joinColumns = @JoinColumn(name = "payment_id"))
+    @Column(name = "user_id", nullable = false)
+    @Fetch(FetchMode.SUBSELECT)
     @Builder.Default
-    private List<Long> coPayers = new ArrayList<>();
+    private Set<Long> coPayers = new HashSet<>();
 
     @Column(name = "creator_id")
     private Long creatorId;
@@ -47,4 +53,4 @@ public class Payment {
     @ManyToOne
     @JoinColumn(name = "group_id")
     private Group group;
-}
\ No newline at end of file
+}
@@ -0,0 +1,18 @@
+package com.eleks.groupservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DebtDto {
+    private Long debtorId;
+    private Long creditorId;
+    private BigDecimal amount;
+}
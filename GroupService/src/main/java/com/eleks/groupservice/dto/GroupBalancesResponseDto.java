@@ -0,0 +1,21 @@
+package com.eleks.groupservice.dto;
+
+import com.eleks.groupservice.domain.Currency;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GroupBalancesResponseDto {
+    private Long groupId;
+    private Currency currency;
+    private List<MemberDto> members;
+    private List<DebtDto> debts;
+    private boolean stale;
+}
@@ -11,4 +11,5 @@ import lombok.experimental.SuperBuilder;
 @EqualsAndHashCode(callSuper = true)
 public class GroupResponseDto extends GroupRequestDto {
     private Long id;
+    private Long version;
 }
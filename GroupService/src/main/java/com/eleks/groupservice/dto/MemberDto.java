@@ -0,0 +1,15 @@
+package com.eleks.groupservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MemberDto {
+    private Long userId;
+    private String username;
+}
@@ -0,0 +1,19 @@
+package com.eleks.groupservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentBatchItemResultDto {
+    private int index;
+    private boolean created;
+    private PaymentResponseDto payment;
+    private List<String> errors;
+}
@@ -0,0 +1,18 @@
+package com.eleks.groupservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentBatchResponseDto {
+    private int created;
+    private int rejected;
+    private List<PaymentBatchItemResultDto> results;
+}
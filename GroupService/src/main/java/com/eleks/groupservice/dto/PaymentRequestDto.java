@@ -5,9 +5,11 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.experimental.SuperBuilder;
 
+import javax.validation.constraints.Digits;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.Size;
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Set;
 
@@ -22,7 +24,8 @@ public class PaymentRequestDto {
 
     @NotNull(message = "price is required")
     @Positive(message = "price can't be negative or zero")
-    private Double price;
+    @Digits(integer = 15, fraction = 2, message = "price can't have more than 2 decimal places")
+    private BigDecimal price;
 
     @NotNull(message = "coPayers is required")
     private List<Long> coPayers;
@@ -0,0 +1,17 @@
+package com.eleks.groupservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentsPageResponseDto {
+    private List<PaymentResponseDto> payments;
+    private String nextCursor;
+}
@@ -0,0 +1,19 @@
+package com.eleks.groupservice.dto;
+
+import com.eleks.groupservice.domain.Currency;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SettlementResponseDto {
+    private Long groupId;
+    private Currency currency;
+    private List<TransferDto> transfers;
+}
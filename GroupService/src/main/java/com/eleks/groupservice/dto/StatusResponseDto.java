@@ -6,6 +6,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.experimental.SuperBuilder;
 
+import java.math.BigDecimal;
+
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -14,5 +16,6 @@ public class StatusResponseDto {
     private Long userId;
     private String username;
     private Currency currency;
-    private Double value;
+    private BigDecimal value;
+    private boolean stale;
 }
@@ -0,0 +1,22 @@
+package com.eleks.groupservice.dto;
+
+import com.eleks.groupservice.domain.Currency;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserGroupBalanceDto {
+    private Long groupId;
+    private String groupName;
+    private Currency currency;
+    private BigDecimal total;
+    private List<StatusResponseDto> members;
+}
@@ -0,0 +1,7 @@
+package com.eleks.groupservice.exception;
+
+public class GroupVersionMismatchException extends RuntimeException {
+    public GroupVersionMismatchException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,7 @@
+package com.eleks.groupservice.exception;
+
+public class InvalidBatchRequestException extends RuntimeException {
+    public InvalidBatchRequestException(String msg) {
+        super(msg);
+    }
+}
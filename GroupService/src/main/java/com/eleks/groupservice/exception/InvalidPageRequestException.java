@@ -0,0 +1,7 @@
+package com.eleks.groupservice.exception;
+
+public class InvalidPageRequestException extends RuntimeException {
+    public InvalidPageRequestException(String msg) {
+        super(msg);
+    }
+}
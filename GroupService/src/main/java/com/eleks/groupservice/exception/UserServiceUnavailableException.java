@@ -0,0 +1,7 @@
+package com.eleks.groupservice.exception;
+
+public class UserServiceUnavailableException extends UserServiceException {
+    public UserServiceUnavailableException(String msg) {
+        super(msg);
+    }
+}
@@ -1,8 +1,12 @@
 package com.eleks.groupservice.handler;
 
 import com.eleks.groupservice.dto.ErrorDto;
+import com.eleks.groupservice.exception.GroupVersionMismatchException;
+import com.eleks.groupservice.exception.InvalidBatchRequestException;
+import com.eleks.groupservice.exception.InvalidPageRequestException;
 import com.eleks.groupservice.exception.ResourceNotFoundException;
 import com.eleks.groupservice.exception.UserServiceException;
+import com.eleks.groupservice.exception.UserServiceUnavailableException;
 import com.eleks.groupservice.exception.UsersIdsValidationException;
 import com.fasterxml.jackson.databind.exc.InvalidFormatException;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
@@ -36,6 +40,13 @@ public class CustomExceptionHandler extends ResponseEntityExceptionHandler {
         return createError(INTERNAL_SERVER_ERROR, singletonList(exception.getMessage()));
     }
 
+    @ExceptionHandler(UserServiceUnavailableException.class)
+    @ResponseStatus(SERVICE_UNAVAILABLE)
+    @ResponseBody
+    public ErrorDto handleUserServiceUnavailableException(UserServiceUnavailableException exception) {
+        return createError(SERVICE_UNAVAILABLE, singletonList(exception.getMessage()));
+    }
+
     @ExceptionHandler(UsersIdsValidationException.class)
     @ResponseStatus(BAD_REQUEST)
     @ResponseBody
@@ -43,6 +54,27 @@ public class CustomExceptionHandler extends ResponseEntityExceptionHandler {
         return createError(BAD_REQUEST, singletonList(exception.getMessage()));
     }
 
+    @ExceptionHandler(InvalidPageRequestException.class)
+    @ResponseStatus(BAD_REQUEST)
+    @ResponseBody
+    public ErrorDto handleInvalidPageRequestException(InvalidPageRequestException exception) {
+        return createError(BAD_REQUEST, singletonList(exception.getMessage()));
+    }
+
+    @ExceptionHandler(InvalidBatchRequestException.class)
+    @ResponseStatus(BAD_REQUEST)
+    @ResponseBody
+    public ErrorDto handleInvalidBatchRequestException(InvalidBatchRequestException exception) {
+        return createError(BAD_REQUEST, singletonList(exception.getMessage()));
+    }
+
+    @ExceptionHandler(GroupVersionMismatchException.class)
+    @ResponseStatus(PRECONDITION_FAILED)
+    @ResponseBody
+    public ErrorDto handleGroupVersionMismatchException(GroupVersionMismatchException exception) {
+        return createError(PRECONDITION_FAILED, singletonList(exception.getMessage()));
+    }
+
     @ExceptionHandler(ResourceNotFoundException.class)
     @ResponseStatus(NOT_FOUND)
     @ResponseBody
@@ -1,6 +1,7 @@
 package com.eleks.groupservice.mapper;
 
 import com.eleks.groupservice.domain.Group;
+import com.eleks.groupservice.domain.LongIdSet;
 import com.eleks.groupservice.dto.GroupRequestDto;
 import com.eleks.groupservice.dto.GroupResponseDto;
 
@@ -15,7 +16,7 @@ public class GroupMapper {
                 .map(dto -> Group.builder()
                         .groupName(dto.getGroupName())
                         .currency(dto.getCurrency())
-                        .members(dto.getMembers())
+                        .members(ofNullable(dto.getMembers()).map(LongIdSet::copyOf).orElse(null))
                         .build())
                 .orElse(null);
     }
@@ -24,9 +25,10 @@ public class GroupMapper {
         return ofNullable(groupEntity)
                 .map(entity -> GroupResponseDto.builder()
                         .id(entity.getId())
+                        .version(entity.getVersion())
                         .groupName(entity.getGroupName())
                         .currency(entity.getCurrency())
-                        .members(entity.getMembers())
+                        .members(ofNullable(entity.getMembers()).map(LongIdSet::copyOf).map(LongIdSet::toList).orElse(null))
                         .build())
                 .orElse(null);
     }
@@ -1,6 +1,7 @@
 package com.eleks.groupservice.mapper;
 
 import com.eleks.groupservice.domain.Group;
+import com.eleks.groupservice.domain.LongIdSet;
 import com.eleks.groupservice.domain.Payment;
 import com.eleks.groupservice.dto.PaymentRequestDto;
 import com.eleks.groupservice.dto.PaymentResponseDto;
@@ -17,8 +18,8 @@ public class PaymentMapper {
         return ofNullable(requestDto)
                 .map(dto -> Payment.builder()
                         .paymentDescription(dto.getPaymentDescription())
-                        .price(dto.getPrice())
-                        .coPayers(dto.getCoPayers())
+                        .price(group.getCurrency().toMinorUnits(dto.getPrice()))
+                        .coPayers(ofNullable(dto.getCoPayers()).map(LongIdSet::copyOf).orElse(null))
                         .creatorId(creatorId)
                         .group(group)
                         .build())
@@ -30,8 +31,8 @@ public class PaymentMapper {
                 .map(entity -> PaymentResponseDto.builder()
                         .id(entity.getId())
                         .paymentDescription(entity.getPaymentDescription())
-                        .price(entity.getPrice())
-                        .coPayers(entity.getCoPayers())
+                        .price(entity.getGroup().getCurrency().toMajorUnits(entity.getPrice()))
+                        .coPayers(ofNullable(entity.getCoPayers()).map(LongIdSet::copyOf).map(LongIdSet::toList).orElse(null))
                         .creatorId(entity.getCreatorId())
                         .groupId(entity.getGroup().getId())
                         .timestamp(entity.getTimestamp())
@@ -0,0 +1,21 @@
+package com.eleks.groupservice.repository;
+
+import com.eleks.groupservice.domain.BalanceSnapshotEntry;
+import com.eleks.groupservice.domain.GroupBalanceId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BalanceSnapshotEntryRepository extends JpaRepository<BalanceSnapshotEntry, GroupBalanceId> {
+
+    List<BalanceSnapshotEntry> findAllByGroupId(Long groupId);
+
+    @Modifying
+    @Query("delete from balance_snapshot_entry e where e.groupId = :groupId")
+    int deleteAllByGroupId(@Param("groupId") Long groupId);
+}
@@ -0,0 +1,16 @@
+package com.eleks.groupservice.repository;
+
+import com.eleks.groupservice.domain.BalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, Long> {
+
+    @Modifying
+    @Query("delete from balance_snapshot s where s.groupId = :groupId")
+    int deleteByGroupId(@Param("groupId") Long groupId);
+}
@@ -0,0 +1,35 @@
+package com.eleks.groupservice.repository;
+
+import com.eleks.groupservice.domain.GroupBalance;
+import com.eleks.groupservice.domain.GroupBalanceId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface GroupBalanceRepository extends JpaRepository<GroupBalance, GroupBalanceId> {
+
+    List<GroupBalance> findAllByGroupIdAndUserA(Long groupId, Long userA);
+
+    List<GroupBalance> findAllByUserA(Long userA);
+
+    /**
+     * Adds the delta to the amount of the row, inserting the row when it doesn't exist yet.
+     */
+    @Modifying
+    @Query(value = "insert into group_balance(group_id, user_a, user_b, amount) " +
+            "values (:groupId, :userA, :userB, :delta) " +
+            "on duplicate key update amount = amount + values(amount)", nativeQuery = true)
+    int addToAmount(@Param("groupId") Long groupId,
+                    @Param("userA") Long userA,
+                    @Param("userB") Long userB,
+                    @Param("delta") long delta);
+
+    @Modifying
+    @Query("delete from group_balance b where b.groupId = :groupId")
+    int deleteAllByGroupId(@Param("groupId") Long groupId);
+}
@@ -0,0 +1,12 @@
+package com.eleks.groupservice.repository;
+
+import java.util.Collection;
+
+public interface GroupMemberRepository {
+
+    /**
+     * Inserts the members in one JDBC batch, which the MySQL driver sends as a multi-row insert when
+     * {@code rewriteBatchedStatements} is enabled.
+     */
+    void insertMembers(Long groupId, Collection<Long> userIds);
+}
@@ -0,0 +1,28 @@
+package com.eleks.groupservice.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Collection;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+
+public class GroupMemberRepositoryImpl implements GroupMemberRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public GroupMemberRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertMembers(Long groupId, Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = userIds.stream()
+                .map(userId -> new Object[]{groupId, userId})
+                .collect(toList());
+        jdbcTemplate.batchUpdate("insert into group_member(group_id, user_id) values (?, ?)", rows);
+    }
+}
@@ -1,9 +1,62 @@
 package com.eleks.groupservice.repository;
 
+import com.eleks.groupservice.domain.Currency;
 import com.eleks.groupservice.domain.Group;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
-public interface GroupRepository extends JpaRepository<Group, Long> {
-}
\ No newline at end of file
+public interface GroupRepository extends JpaRepository<Group, Long>, GroupMemberRepository {
+
+    @Override
+    @EntityGraph(attributePaths = "members")
+    Optional<Group> findById(Long id);
+
+    @Query("select distinct g from user_group g left join fetch g.payments where g.id = :id")
+    Optional<Group> findWithPaymentsById(@Param("id") Long id);
+
+    @Query("select distinct g from user_group g left join fetch g.payments")
+    List<Group> findAllWithPayments();
+
+    @Query(value = "select id from user_group where id = :id for update", nativeQuery = true)
+    Optional<Long> lockById(@Param("id") Long id);
+
+    @Query("select g.version from user_group g where g.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @Modifying
+    @Query("update user_group g set g.groupName = :groupName, g.currency = :currency, g.version = g.version + 1 " +
+            "where g.id = :id")
+    int updateGroup(@Param("id") Long id, @Param("groupName") String groupName, @Param("currency") Currency currency);
+
+    @Modifying
+    @Query("update user_group g set g.groupName = :groupName, g.currency = :currency, g.version = g.version + 1 " +
+            "where g.id = :id and g.version = :version")
+    int updateGroupIfVersionMatches(@Param("id") Long id, @Param("version") Long version,
+                                    @Param("groupName") String groupName, @Param("currency") Currency currency);
+
+    @Modifying
+    @Query(value = "delete from group_member where group_id = :groupId", nativeQuery = true)
+    int deleteMembersByGroupId(@Param("groupId") Long groupId);
+
+    @Modifying
+    @Query("delete from user_group g where g.id = :id")
+    int deleteGroupById(@Param("id") Long id);
+
+    @Query("select case when count(g) > 0 then true else false end " +
+            "from user_group g join g.members m where g.id = :groupId and m = :userId")
+    boolean isMember(@Param("groupId") Long groupId, @Param("userId") Long userId);
+
+    @Query("select g.id from user_group g join g.members m where m = :userId order by g.id")
+    List<Long> findGroupsIdsByMemberId(@Param("userId") Long userId);
+
+    @Query("select g from user_group g join g.members m where m = :userId order by g.id")
+    List<Group> findAllByMemberId(@Param("userId") Long userId);
+}
@@ -1,12 +1,79 @@
 package com.eleks.groupservice.repository;
 
-import com.eleks.groupservice.domain.Group;
 import com.eleks.groupservice.domain.Payment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
+
+    @Query("select p from payment p join fetch p.group left join fetch p.coPayers " +
+            "where p.id = :id and p.group.id = :groupId")
+    Optional<Payment> findByIdAndGroupId(@Param("id") Long id, @Param("groupId") Long groupId);
+
+    List<Payment> findAllByGroupIdOrderById(Long groupId);
+
+    List<Payment> findAllByGroupIdAndIdGreaterThanOrderById(Long groupId, Long paymentId);
+
+    @Query("select p.id from payment p where p.group.id = :groupId order by p.timestamp, p.id")
+    List<Long> findPageIdsByGroupId(@Param("groupId") Long groupId, Pageable pageable);
+
+    @Query("select p.id from payment p where p.group.id = :groupId and p.timestamp >= :timestamp " +
+            "and (p.timestamp > :timestamp or p.id > :id) order by p.timestamp, p.id")
+    List<Long> findPageIdsByGroupIdAfter(@Param("groupId") Long groupId, @Param("timestamp") Instant timestamp,
+                                         @Param("id") Long id, Pageable pageable);
+
+    @Query("select distinct p from payment p left join fetch p.coPayers where p.id in :ids order by p.timestamp, p.id")
+    List<Payment> findAllWithCoPayersByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "delete from payment_co_payer where payment_id = :paymentId", nativeQuery = true)
+    int deleteCoPayersByPaymentId(@Param("paymentId") Long paymentId);
+
+    @Modifying
+    @Query(value = "delete from payment_co_payer where payment_id in (select id from payment where group_id = :groupId)",
+            nativeQuery = true)
+    int deleteCoPayersByGroupId(@Param("groupId") Long groupId);
+
+    @Modifying
+    @Query("delete from payment p where p.id = :id and p.group.id = :groupId")
+    int deleteByIdAndGroupId(@Param("id") Long id, @Param("groupId") Long groupId);
+
+    @Modifying
+    @Query("delete from payment p where p.group.id = :groupId")
+    int deleteAllByGroupId(@Param("groupId") Long groupId);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select p from payment p left join fetch p.coPayers where p.group.id = :groupId order by p.timestamp, p.id")
+    Stream<Payment> streamAllByGroupId(@Param("groupId") Long groupId);
+
+    @Query("select p from payment p join p.coPayers c where p.group.id = :groupId and c = :userId order by p.id")
+    List<Payment> findAllByGroupIdAndCoPayer(@Param("groupId") Long groupId, @Param("userId") Long userId);
+
+    @Query("select p from payment p join p.coPayers c join p.coPayers o " +
+            "where p.group.id = :groupId and c = :userId and o = :otherUserId order by p.id")
+    List<Payment> findAllByGroupIdSharedByCoPayers(@Param("groupId") Long groupId, @Param("userId") Long userId,
+                                                   @Param("otherUserId") Long otherUserId);
+
+    @Query("select p.group.id from payment p " +
+            "where p.timestamp < :before and not exists (" +
+            "select s from balance_snapshot s where s.groupId = p.group.id and s.lastPaymentId >= p.id) " +
+            "group by p.group.id having count(p) >= :minPayments")
+    List<Long> findGroupsIdsWithPaymentsSinceSnapshot(@Param("minPayments") long minPayments,
+                                                      @Param("before") Instant before);
 }
@@ -0,0 +1,53 @@
+package com.eleks.groupservice.runner;
+
+import com.eleks.common.datasource.ReadYourWritesContext;
+import com.eleks.groupservice.service.BalanceLedgerService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Recomputes the group_balance table from payment rows when the application is started with
+ * {@code --rebuild-balances} (all groups) or {@code --rebuild-balances=1,2} (listed groups only).
+ */
+@Slf4j
+@Component
+public class RebuildBalancesRunner implements ApplicationRunner {
+
+    static final String REBUILD_BALANCES_OPTION = "rebuild-balances";
+
+    private BalanceLedgerService service;
+
+    @Autowired
+    public RebuildBalancesRunner(BalanceLedgerService service) {
+        this.service = service;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (args.containsOption(REBUILD_BALANCES_OPTION)) {
+            ReadYourWritesContext.run(() -> rebuild(args.getOptionValues(REBUILD_BALANCES_OPTION)));
+        }
+    }
+
+    private void rebuild(List<String> values) {
+        if (values.isEmpty()) {
+            log.info("Rebuilding balances of all groups");
+            service.rebuildAllBalances();
+            return;
+        }
+        values.stream()
+                .flatMap(value -> Arrays.stream(value.split(",")))
+                .map(String::trim)
+                .map(Long::valueOf)
+                .forEach(groupId -> {
+                    log.info("Rebuilding balances of group {}", groupId);
+                    service.rebuildBalances(groupId);
+                });
+    }
+}
@@ -0,0 +1,43 @@
+package com.eleks.groupservice.scheduler;
+
+import com.eleks.common.datasource.ReadYourWritesContext;
+import com.eleks.groupservice.service.BalanceSnapshotService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically snapshots the balances of groups which got at least {@code balance.snapshot.min-payments}
+ * payments since their last snapshot. Every instance runs it; snapshots of the same group are serialized by the
+ * group row lock, and a snapshot inserted by another instance in the meantime is skipped.
+ */
+@Slf4j
+@Component
+public class BalanceSnapshotCompactor {
+
+    private BalanceSnapshotService service;
+
+    @Autowired
+    public BalanceSnapshotCompactor(BalanceSnapshotService service) {
+        this.service = service;
+    }
+
+    @Scheduled(initialDelayString = "${balance.snapshot.compaction-interval-ms}",
+            fixedDelayString = "${balance.snapshot.compaction-interval-ms}")
+    public void compact() {
+        service.findGroupsToSnapshot().forEach(groupId -> ReadYourWritesContext.run(() -> compact(groupId)));
+    }
+
+    private void compact(Long groupId) {
+        try {
+            service.createSnapshot(groupId);
+            log.info("Created balance snapshot of group {}", groupId);
+        } catch (DataIntegrityViolationException ex) {
+            log.info("Balance snapshot of group {} was created concurrently", groupId);
+        } catch (RuntimeException ex) {
+            log.warn("Failed to create balance snapshot of group {}", groupId, ex);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.eleks.groupservice.service;
+
+import com.eleks.groupservice.domain.BalanceSnapshotEntry;
+import com.eleks.groupservice.domain.Payment;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Balances of a group split into the latest snapshot and the payments made after it. Without a snapshot
+ * the entries are empty and the payments are the whole group history.
+ */
+@Data
+@AllArgsConstructor
+public class BalanceHistory {
+    private List<BalanceSnapshotEntry> snapshotEntries;
+    private List<Payment> payments;
+}
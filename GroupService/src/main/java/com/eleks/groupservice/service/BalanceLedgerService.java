@@ -0,0 +1,25 @@
+package com.eleks.groupservice.service;
+
+import com.eleks.groupservice.domain.Payment;
+import com.eleks.groupservice.exception.ResourceNotFoundException;
+
+import java.util.List;
+import java.util.Map;
+
+public interface BalanceLedgerService {
+    void applyPayment(Payment payment);
+
+    void applyPayments(Long groupId, List<Payment> payments);
+
+    void revertPayment(Payment payment);
+
+    Map<Long, Long> getBalances(Long groupId, Long userId);
+
+    Map<Long, Map<Long, Long>> getBalancesOfUser(Long userId);
+
+    void deleteBalances(Long groupId);
+
+    void rebuildBalances(Long groupId) throws ResourceNotFoundException;
+
+    void rebuildAllBalances();
+}
@@ -0,0 +1,121 @@
+package com.eleks.groupservice.service;
+
+import com.eleks.groupservice.domain.Group;
+import com.eleks.groupservice.domain.GroupBalance;
+import com.eleks.groupservice.domain.GroupBalanceId;
+import com.eleks.groupservice.domain.Payment;
+import com.eleks.groupservice.exception.ResourceNotFoundException;
+import com.eleks.groupservice.repository.GroupBalanceRepository;
+import com.eleks.groupservice.repository.GroupRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.eleks.groupservice.service.PaymentsCalculationHelper.addPairwiseDebts;
+import static com.eleks.groupservice.service.PaymentsCalculationHelper.calculateDebtsToCreator;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+
+@Service
+public class BalanceLedgerServiceImpl implements BalanceLedgerService {
+
+    private GroupBalanceRepository balanceRepository;
+    private GroupRepository groupRepository;
+
+    @Autowired
+    public BalanceLedgerServiceImpl(GroupBalanceRepository balanceRepository, GroupRepository groupRepository) {
+        this.balanceRepository = balanceRepository;
+        this.groupRepository = groupRepository;
+    }
+
+    @Override
+    @Transactional
+    public void applyPayment(Payment payment) {
+        updateBalances(payment, 1);
+    }
+
+    @Override
+    @Transactional
+    public void applyPayments(Long groupId, List<Payment> payments) {
+        Map<GroupBalanceId, Long> deltas = new HashMap<>();
+        payments.forEach(payment -> addPairwiseDebts(deltas, groupId, payment));
+        deltas.forEach((id, delta) -> addToBalance(groupId, id.getUserA(), id.getUserB(), delta));
+    }
+
+    @Override
+    @Transactional
+    public void revertPayment(Payment payment) {
+        updateBalances(payment, -1);
+    }
+
+    @Override
+    public Map<Long, Long> getBalances(Long groupId, Long userId) {
+        return balanceRepository.findAllByGroupIdAndUserA(groupId, userId)
+                .stream()
+                .collect(toMap(GroupBalance::getUserB, GroupBalance::getAmount));
+    }
+
+    @Override
+    public Map<Long, Map<Long, Long>> getBalancesOfUser(Long userId) {
+        return balanceRepository.findAllByUserA(userId)
+                .stream()
+                .collect(groupingBy(GroupBalance::getGroupId, toMap(GroupBalance::getUserB, GroupBalance::getAmount)));
+    }
+
+    @Override
+    @Transactional
+    public void deleteBalances(Long groupId) {
+        balanceRepository.deleteAllByGroupId(groupId);
+    }
+
+    @Override
+    @Transactional
+    public void rebuildBalances(Long groupId) throws ResourceNotFoundException {
+        Group group = groupRepository.findWithPaymentsById(groupId)
+                .orElseThrow(() -> new ResourceNotFoundException("Group doesn't exist"));
+        rebuildBalances(group);
+    }
+
+    @Override
+    @Transactional
+    public void rebuildAllBalances() {
+        groupRepository.findAllWithPayments().forEach(this::rebuildBalances);
+    }
+
+    private void rebuildBalances(Group group) {
+        Long groupId = group.getId();
+        Map<GroupBalanceId, Long> amounts = new HashMap<>();
+        group.getPayments().forEach(payment -> addPairwiseDebts(amounts, groupId, payment));
+
+        List<GroupBalance> balances = amounts.entrySet()
+                .stream()
+                .map(entry -> GroupBalance.builder()
+                        .groupId(groupId)
+                        .userA(entry.getKey().getUserA())
+                        .userB(entry.getKey().getUserB())
+                        .amount(entry.getValue())
+                        .build())
+                .collect(toList());
+
+        balanceRepository.deleteAllByGroupId(groupId);
+        balanceRepository.saveAll(balances);
+    }
+
+    private void updateBalances(Payment payment, int sign) {
+        Long groupId = payment.getGroup().getId();
+        Long creatorId = payment.getCreatorId();
+        calculateDebtsToCreator(payment).forEach((debtorId, debt) -> {
+            addToBalance(groupId, creatorId, debtorId, sign * debt);
+            addToBalance(groupId, debtorId, creatorId, -sign * debt);
+        });
+    }
+
+    private void addToBalance(Long groupId, Long userA, Long userB, long delta) {
+        balanceRepository.addToAmount(groupId, userA, userB, delta);
+    }
+}
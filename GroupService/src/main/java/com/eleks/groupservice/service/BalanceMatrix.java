@@ -0,0 +1,41 @@
+package com.eleks.groupservice.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dense square matrix of pairwise balances in minor units. {@code get(i, j)} is the amount which the member
+ * at index j owes the member at index i, so the matrix is antisymmetric.
+ */
+public class BalanceMatrix {
+
+    private final List<Long> membersIds;
+    private final Map<Long, Integer> indexes;
+    private final long[] amounts;
+
+    BalanceMatrix(List<Long> membersIds, Map<Long, Integer> indexes, long[] amounts) {
+        this.membersIds = membersIds;
+        this.indexes = indexes;
+        this.amounts = amounts;
+    }
+
+    public int size() {
+        return membersIds.size();
+    }
+
+    public Long getMemberId(int index) {
+        return membersIds.get(index);
+    }
+
+    public long get(int creditorIndex, int debtorIndex) {
+        return amounts[creditorIndex * size() + debtorIndex];
+    }
+
+    void add(Long creditorId, Long debtorId, long amount) {
+        Integer creditorIndex = indexes.get(creditorId);
+        Integer debtorIndex = indexes.get(debtorId);
+        if (creditorIndex != null && debtorIndex != null) {
+            amounts[creditorIndex * size() + debtorIndex] += amount;
+        }
+    }
+}
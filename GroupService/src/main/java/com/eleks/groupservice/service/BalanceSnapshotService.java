@@ -0,0 +1,20 @@
+package com.eleks.groupservice.service;
+
+import com.eleks.groupservice.domain.Group;
+import com.eleks.groupservice.domain.Payment;
+
+import java.util.List;
+
+public interface BalanceSnapshotService {
+    BalanceHistory getBalanceHistory(Group group);
+
+    List<Long> findGroupsToSnapshot();
+
+    void createSnapshot(Long groupId);
+
+    void invalidateSnapshot(Payment payment);
+
+    void invalidateSnapshot(Long groupId, List<Payment> payments);
+
+    void deleteSnapshot(Long groupId);
+}
@@ -0,0 +1,139 @@
+package com.eleks.groupservice.service;
+
+import com.eleks.groupservice.domain.BalanceSnapshot;
+import com.eleks.groupservice.domain.BalanceSnapshotEntry;
+import com.eleks.groupservice.domain.Group;
+import com.eleks.groupservice.domain.GroupBalanceId;
+import com.eleks.groupservice.domain.Payment;
+import com.eleks.groupservice.repository.BalanceSnapshotEntryRepository;
+import com.eleks.groupservice.repository.BalanceSnapshotRepository;
+import com.eleks.groupservice.repository.GroupRepository;
+import com.eleks.groupservice.repository.PaymentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.eleks.groupservice.service.PaymentsCalculationHelper.addPairwiseDebts;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Snapshots only cover payments older than the settle delay. Payment ids are handed out in blocks per instance, so
+ * they don't follow insert order and a new payment can get a lower id than the last one of the snapshot. Such a
+ * payment invalidates the snapshot, and the group row lock keeps a snapshot from being built while a payment of the
+ * group is being created or deleted, so the id-based replay never skips or double counts a payment.
+ */
+@Service
+public class BalanceSnapshotServiceImpl implements BalanceSnapshotService {
+
+    private BalanceSnapshotRepository snapshotRepository;
+    private BalanceSnapshotEntryRepository entryRepository;
+    private PaymentRepository paymentRepository;
+    private GroupRepository groupRepository;
+    private long minPayments;
+    private long settleDelayMillis;
+
+    @Autowired
+    public BalanceSnapshotServiceImpl(BalanceSnapshotRepository snapshotRepository,
+                                      BalanceSnapshotEntryRepository entryRepository,
+                                      PaymentRepository paymentRepository,
+                                      GroupRepository groupRepository,
+                                      @Value("${balance.snapshot.min-payments}") long minPayments,
+                                      @Value("${balance.snapshot.settle-delay-ms}") long settleDelayMillis) {
+        this.snapshotRepository = snapshotRepository;
+        this.entryRepository = entryRepository;
+        this.paymentRepository = paymentRepository;
+        this.groupRepository = groupRepository;
+        this.minPayments = minPayments;
+        this.settleDelayMillis = settleDelayMillis;
+    }
+
+    @Override
+    public BalanceHistory getBalanceHistory(Group group) {
+        Long groupId = group.getId();
+        return snapshotRepository.findById(groupId)
+                .map(snapshot -> new BalanceHistory(
+                        entryRepository.findAllByGroupId(groupId),
+                        paymentRepository.findAllByGroupIdAndIdGreaterThanOrderById(groupId, snapshot.getLastPaymentId())))
+                .orElseGet(() -> new BalanceHistory(Collections.emptyList(), paymentRepository.findAllByGroupIdOrderById(groupId)));
+    }
+
+    @Override
+    public List<Long> findGroupsToSnapshot() {
+        return paymentRepository.findGroupsIdsWithPaymentsSinceSnapshot(minPayments, settledBefore());
+    }
+
+    @Override
+    @Transactional
+    public void createSnapshot(Long groupId) {
+        if (!groupRepository.lockById(groupId).isPresent()) {
+            return;
+        }
+        Optional<BalanceSnapshot> previous = snapshotRepository.findById(groupId);
+        Long previousPaymentId = previous.map(BalanceSnapshot::getLastPaymentId).orElse(0L);
+
+        Map<GroupBalanceId, Long> amounts = new HashMap<>();
+        entryRepository.findAllByGroupId(groupId).forEach(entry ->
+                amounts.put(new GroupBalanceId(groupId, entry.getUserA(), entry.getUserB()), entry.getAmount()));
+
+        Instant settledBefore = settledBefore();
+        Long lastPaymentId = previousPaymentId;
+        for (Payment payment : paymentRepository.findAllByGroupIdAndIdGreaterThanOrderById(groupId, previousPaymentId)) {
+            if (!payment.getTimestamp().isBefore(settledBefore)) {
+                break;
+            }
+            addPairwiseDebts(amounts, groupId, payment);
+            lastPaymentId = payment.getId();
+        }
+        if (lastPaymentId.equals(previousPaymentId)) {
+            return;
+        }
+
+        List<BalanceSnapshotEntry> entries = amounts.entrySet()
+                .stream()
+                .filter(entry -> entry.getValue() != 0)
+                .map(entry -> BalanceSnapshotEntry.builder()
+                        .groupId(groupId)
+                        .userA(entry.getKey().getUserA())
+                        .userB(entry.getKey().getUserB())
+                        .amount(entry.getValue())
+                        .build())
+                .collect(toList());
+
+        entryRepository.deleteAllByGroupId(groupId);
+        entryRepository.saveAll(entries);
+        snapshotRepository.save(new BalanceSnapshot(groupId, lastPaymentId, Instant.now()));
+    }
+
+    @Override
+    @Transactional
+    public void invalidateSnapshot(Payment payment) {
+        invalidateSnapshot(payment.getGroup().getId(), Collections.singletonList(payment));
+    }
+
+    @Override
+    @Transactional
+    public void invalidateSnapshot(Long groupId, List<Payment> payments) {
+        snapshotRepository.findById(groupId)
+                .filter(snapshot -> payments.stream().anyMatch(payment -> payment.getId() <= snapshot.getLastPaymentId()))
+                .ifPresent(snapshot -> deleteSnapshot(groupId));
+    }
+
+    @Override
+    @Transactional
+    public void deleteSnapshot(Long groupId) {
+        entryRepository.deleteAllByGroupId(groupId);
+        snapshotRepository.deleteByGroupId(groupId);
+    }
+
+    private Instant settledBefore() {
+        return Instant.now().minusMillis(settleDelayMillis);
+    }
+}
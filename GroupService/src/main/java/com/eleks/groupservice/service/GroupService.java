@@ -1,8 +1,12 @@
 package com.eleks.groupservice.service;
 
+import com.eleks.groupservice.dto.GroupBalancesResponseDto;
 import com.eleks.groupservice.dto.GroupRequestDto;
 import com.eleks.groupservice.dto.GroupResponseDto;
+import com.eleks.groupservice.dto.SettlementResponseDto;
 import com.eleks.groupservice.dto.StatusResponseDto;
+import com.eleks.groupservice.dto.UserGroupBalanceDto;
+import com.eleks.groupservice.exception.GroupVersionMismatchException;
 import com.eleks.groupservice.exception.ResourceNotFoundException;
 import com.eleks.groupservice.exception.UsersIdsValidationException;
 
@@ -14,9 +18,16 @@ public interface GroupService {
 
     Optional<GroupResponseDto> getGroup(Long id);
 
-    GroupResponseDto editGroup(Long id, GroupRequestDto requestDto) throws ResourceNotFoundException, UsersIdsValidationException;
+    GroupResponseDto editGroup(Long id, Long expectedVersion, GroupRequestDto requestDto)
+            throws ResourceNotFoundException, UsersIdsValidationException, GroupVersionMismatchException;
 
     GroupResponseDto saveGroup(GroupRequestDto group) throws UsersIdsValidationException;
 
     List<StatusResponseDto> getGroupMembersStatus(Long groupId, Long requesterId) throws ResourceNotFoundException, UsersIdsValidationException;
+
+    SettlementResponseDto getSettlement(Long groupId) throws ResourceNotFoundException;
+
+    GroupBalancesResponseDto getGroupBalances(Long groupId) throws ResourceNotFoundException;
+
+    List<UserGroupBalanceDto> getUserBalances(Long userId);
 }
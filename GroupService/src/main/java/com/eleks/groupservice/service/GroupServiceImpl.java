@@ -1,35 +1,74 @@
 package com.eleks.groupservice.service;
 
 import com.eleks.groupservice.client.UserClient;
+import com.eleks.groupservice.client.UserLookupResult;
+import com.eleks.groupservice.domain.Currency;
 import com.eleks.groupservice.domain.Group;
+import com.eleks.groupservice.domain.LongIdSet;
+import com.eleks.groupservice.dto.DebtDto;
+import com.eleks.groupservice.dto.GroupBalancesResponseDto;
 import com.eleks.groupservice.dto.GroupRequestDto;
 import com.eleks.groupservice.dto.GroupResponseDto;
+import com.eleks.groupservice.dto.MemberDto;
+import com.eleks.groupservice.dto.SettlementResponseDto;
+import com.eleks.groupservice.dto.TransferDto;
 import com.eleks.groupservice.dto.UserDto;
 import com.eleks.groupservice.dto.StatusResponseDto;
+import com.eleks.groupservice.dto.UserGroupBalanceDto;
+import com.eleks.groupservice.exception.GroupVersionMismatchException;
 import com.eleks.groupservice.exception.ResourceNotFoundException;
+import com.eleks.groupservice.exception.UserServiceException;
 import com.eleks.groupservice.exception.UsersIdsValidationException;
 import com.eleks.groupservice.mapper.GroupMapper;
 import com.eleks.groupservice.repository.GroupRepository;
+import com.eleks.groupservice.repository.PaymentRepository;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 
-import static com.eleks.groupservice.service.PaymentsCalculationHelper.calculateValues;
+import static com.eleks.groupservice.service.PaymentsCalculationHelper.calculateBalanceMatrix;
+import static com.eleks.groupservice.service.PaymentsCalculationHelper.calculateNetPositions;
+import static com.eleks.groupservice.service.SettlementHelper.planTransfers;
+import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
 
+@Slf4j
 @Service
 public class GroupServiceImpl implements GroupService {
 
     private GroupRepository repository;
+    private PaymentRepository paymentRepository;
     private UserClient client;
+    private BalanceLedgerService balanceLedgerService;
+    private BalanceSnapshotService balanceSnapshotService;
+    private TransactionTemplate transactionTemplate;
+    private ForkJoinPool calculationPool;
+    private int parallelThreshold;
 
     @Autowired
-    public GroupServiceImpl(GroupRepository repository, UserClient client) {
+    public GroupServiceImpl(GroupRepository repository, PaymentRepository paymentRepository, UserClient client,
+                            BalanceLedgerService balanceLedgerService, BalanceSnapshotService balanceSnapshotService,
+                            TransactionTemplate transactionTemplate, ForkJoinPool calculationPool, @Value("${balance.calculation.parallel-threshold}") int parallelThreshold) {
         this.repository = repository;
+        this.paymentRepository = paymentRepository;
         this.client = client;
+        this.balanceLedgerService = balanceLedgerService;
+        this.balanceSnapshotService = balanceSnapshotService;
+        this.transactionTemplate = transactionTemplate;
+        this.calculationPool = calculationPool;
+        this.parallelThreshold = parallelThreshold;
     }
 
     @Override
@@ -43,60 +82,216 @@ public class GroupServiceImpl implements GroupService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<GroupResponseDto> getGroup(Long id) {
         return repository.findById(id).map(GroupMapper::toDto);
     }
 
     @Override
-    public GroupResponseDto editGroup(Long id, GroupRequestDto requestDto) throws ResourceNotFoundException, UsersIdsValidationException {
-        if (!repository.findById(id).isPresent()) {
-            throw new ResourceNotFoundException("Group does't exist");
-        }
+    public GroupResponseDto editGroup(Long id, Long expectedVersion, GroupRequestDto requestDto)
+            throws ResourceNotFoundException, UsersIdsValidationException, GroupVersionMismatchException {
         if (!client.areUserIdsValid(requestDto.getMembers())) {
             throw new UsersIdsValidationException("Group contains non existing users");
         }
 
         Group group = GroupMapper.toEntity(requestDto);
-        group.setId(id);
-        return GroupMapper.toDto(repository.save(group));
+        return transactionTemplate.execute(status -> {
+            int updated = expectedVersion == null
+                    ? repository.updateGroup(id, group.getGroupName(), group.getCurrency())
+                    : repository.updateGroupIfVersionMatches(id, expectedVersion, group.getGroupName(), group.getCurrency());
+            if (updated == 0) {
+                if (!repository.existsById(id)) {
+                    throw new ResourceNotFoundException("Group does't exist");
+                }
+                throw new GroupVersionMismatchException("Group was modified by another request");
+            }
+
+            repository.deleteMembersByGroupId(id);
+            repository.insertMembers(id, group.getMembers());
+            group.setId(id);
+            group.setVersion(expectedVersion == null
+                    ? repository.findVersionById(id).orElseThrow(() -> new ResourceNotFoundException("Group does't exist"))
+                    : expectedVersion + 1);
+            return GroupMapper.toDto(group);
+        });
     }
 
     @Override
+    @Transactional
     public void deleteGroupById(Long id) throws ResourceNotFoundException {
-        if (repository.findById(id).isPresent()) {
-            repository.deleteById(id);
-        } else {
+        balanceLedgerService.deleteBalances(id);
+        balanceSnapshotService.deleteSnapshot(id);
+        paymentRepository.deleteCoPayersByGroupId(id);
+        paymentRepository.deleteAllByGroupId(id);
+        repository.deleteMembersByGroupId(id);
+        if (repository.deleteGroupById(id) == 0) {
             throw new ResourceNotFoundException("Group does't exist");
         }
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<StatusResponseDto> getGroupMembersStatus(Long groupId, Long requesterId) throws ResourceNotFoundException, UsersIdsValidationException {
-        Group group = repository.findById(groupId).orElseThrow(() -> new ResourceNotFoundException("Group doesn't exist"));
-
-        if (!group.getMembers().contains(requesterId)) {
+        if (!repository.isMember(groupId, requesterId)) {
+            if (!repository.existsById(groupId)) {
+                throw new ResourceNotFoundException("Group doesn't exist");
+            }
             throw new UsersIdsValidationException("User is not a member of the group");
         }
+        Group group = repository.findById(groupId).orElseThrow(() -> new ResourceNotFoundException("Group doesn't exist"));
 
-        List<Long> otherMembersIdsFromGroup = group.getMembers()
-                .stream()
-                .filter(memberId -> !memberId.equals(requesterId))
-                .collect(toList());
+        List<Long> otherMembersIdsFromGroup = LongIdSet.copyOf(group.getMembers()).without(requesterId).toList();
 
-        List<UserDto> members = client.getListOfUsersByIds(otherMembersIdsFromGroup);
-        List<Long> realMembersIds = members.stream()
-                .map(UserDto::getId)
-                .collect(toList());
-        Map<Long, Double> values = calculateValues(requesterId, group.getPayments(), realMembersIds);
+        CompletableFuture<UserLookupResult> members = client.getUsersOrLastKnownAsync(otherMembersIdsFromGroup);
+        Map<Long, Long> values = balanceLedgerService.getBalances(groupId, requesterId);
+        UserLookupResult lookup = UserClient.join(members);
 
-        return members.stream()
+        return lookup.getUsers().stream()
                 .map(member ->
                         StatusResponseDto.builder()
                                 .userId(member.getId())
                                 .username(member.getUsername())
                                 .currency(group.getCurrency())
-                                .value(values.get(member.getId()))
+                                .value(group.getCurrency().toMajorUnits(values.getOrDefault(member.getId(), 0L)))
+                                .stale(lookup.isStale())
                                 .build()
                 ).collect(toList());
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public SettlementResponseDto getSettlement(Long groupId) throws ResourceNotFoundException {
+        Group group = repository.findById(groupId).orElseThrow(() -> new ResourceNotFoundException("Group doesn't exist"));
+
+        BalanceHistory history = balanceSnapshotService.getBalanceHistory(group);
+        Map<Long, Long> positions = calculateNetPositions(history.getPayments(), calculationPool, parallelThreshold);
+        history.getSnapshotEntries().forEach(entry -> positions.merge(entry.getUserA(), entry.getAmount(), Long::sum));
+
+        List<TransferDto> transfers = planTransfers(positions)
+                .stream()
+                .map(transfer -> TransferDto.builder()
+                        .fromUserId(transfer.getFromUserId())
+                        .toUserId(transfer.getToUserId())
+                        .amount(group.getCurrency().toMajorUnits(transfer.getAmount()))
+                        .build())
+                .collect(toList());
+
+        return SettlementResponseDto.builder()
+                .groupId(groupId)
+                .currency(group.getCurrency())
+                .transfers(transfers)
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public GroupBalancesResponseDto getGroupBalances(Long groupId) throws ResourceNotFoundException {
+        Group group = repository.findById(groupId).orElseThrow(() -> new ResourceNotFoundException("Group doesn't exist"));
+        List<Long> membersIds = LongIdSet.copyOf(group.getMembers()).toList();
+
+        CompletableFuture<UserLookupResult> usersFuture = client.getUsersOrLastKnownAsync(membersIds);
+        BalanceHistory history = balanceSnapshotService.getBalanceHistory(group);
+        BalanceMatrix matrix = calculateBalanceMatrix(history.getPayments(), membersIds, calculationPool, parallelThreshold);
+        history.getSnapshotEntries().forEach(entry -> matrix.add(entry.getUserA(), entry.getUserB(), entry.getAmount()));
+
+        UserLookupResult lookup = joinOrNoUsers(usersFuture);
+        Map<Long, UserDto> users = lookup.getUsers()
+                .stream()
+                .collect(toMap(UserDto::getId, identity()));
+        List<MemberDto> members = membersIds.stream()
+                .map(memberId -> {
+                    UserDto user = users.get(memberId);
+                    return new MemberDto(memberId, user == null ? null : user.getUsername());
+                })
+                .collect(toList());
+
+        return GroupBalancesResponseDto.builder()
+                .groupId(groupId)
+                .currency(group.getCurrency())
+                .members(members)
+                .debts(toDebts(matrix, group.getCurrency()))
+                .stale(lookup.isStale())
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserGroupBalanceDto> getUserBalances(Long userId) {
+        List<Group> groups = repository.findAllByMemberId(userId);
+        if (groups.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        LongIdSet counterpartsIds = groups.stream()
+                .map(group -> LongIdSet.copyOf(group.getMembers()))
+                .reduce(LongIdSet.empty(), LongIdSet::union)
+                .without(userId);
+        CompletableFuture<UserLookupResult> usersFuture = client.getUsersOrLastKnownAsync(counterpartsIds.toList());
+        Map<Long, Map<Long, Long>> balances = balanceLedgerService.getBalancesOfUser(userId);
+        UserLookupResult lookup = UserClient.join(usersFuture);
+        Map<Long, UserDto> users = lookup.getUsers()
+                .stream()
+                .collect(toMap(UserDto::getId, identity()));
+
+        return groups.stream()
+                .map(group -> toUserGroupBalance(group, userId, users, lookup.isStale(),
+                        balances.getOrDefault(group.getId(), Collections.emptyMap())))
+                .collect(toList());
+    }
+
+    private static UserGroupBalanceDto toUserGroupBalance(Group group, Long userId, Map<Long, UserDto> users,
+                                                          boolean staleUsers, Map<Long, Long> values) {
+        Currency currency = group.getCurrency();
+        List<StatusResponseDto> members = LongIdSet.copyOf(group.getMembers())
+                .without(userId)
+                .stream()
+                .filter(users::containsKey)
+                .map(memberId -> StatusResponseDto.builder()
+                        .userId(memberId)
+                        .username(users.get(memberId).getUsername())
+                        .currency(currency)
+                        .value(currency.toMajorUnits(values.getOrDefault(memberId, 0L)))
+                        .stale(staleUsers)
+                        .build())
+                .collect(toList());
+        long total = values.values()
+                .stream()
+                .mapToLong(Long::longValue)
+                .sum();
+
+        return UserGroupBalanceDto.builder()
+                .groupId(group.getId())
+                .groupName(group.getGroupName())
+                .currency(currency)
+                .total(currency.toMajorUnits(total))
+                .members(members)
+                .build();
+    }
+
+    /**
+     * Usernames only decorate the balances, so a failed lookup leaves them out instead of failing the request.
+     */
+    private static UserLookupResult joinOrNoUsers(CompletableFuture<UserLookupResult> users) {
+        try {
+            return UserClient.join(users);
+        } catch (UserServiceException ex) {
+            log.warn("Returning balances without usernames, UserService call failed: {}", ex.getMessage());
+            return new UserLookupResult(Collections.emptyList(), true);
+        }
+    }
+
+    private static List<DebtDto> toDebts(BalanceMatrix matrix, Currency currency) {
+        List<DebtDto> debts = new ArrayList<>();
+        for (int i = 0; i < matrix.size(); i++) {
+            for (int j = i + 1; j < matrix.size(); j++) {
+                long amount = matrix.get(i, j);
+                if (amount > 0) {
+                    debts.add(new DebtDto(matrix.getMemberId(j), matrix.getMemberId(i), currency.toMajorUnits(amount)));
+                } else if (amount < 0) {
+                    debts.add(new DebtDto(matrix.getMemberId(i), matrix.getMemberId(j), currency.toMajorUnits(-amount)));
+                }
+            }
+        }
+        return debts;
+    }
 }
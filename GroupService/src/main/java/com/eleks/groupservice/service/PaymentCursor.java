@@ -0,0 +1,44 @@
+package com.eleks.groupservice.service;
+
+import com.eleks.groupservice.domain.Payment;
+import com.eleks.groupservice.exception.InvalidPageRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position after the last payment of a page in the (timestamp, id) order. Clients get it as an opaque
+ * url-safe string and pass it back to read the next page.
+ */
+@Data
+@AllArgsConstructor
+public class PaymentCursor {
+    private static final String SEPARATOR = "_";
+
+    private Instant timestamp;
+    private Long id;
+
+    public static PaymentCursor of(Payment payment) {
+        return new PaymentCursor(payment.getTimestamp(), payment.getId());
+    }
+
+    public static PaymentCursor decode(String cursor) throws InvalidPageRequestException {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf(SEPARATOR);
+            return new PaymentCursor(Instant.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new InvalidPageRequestException("Cursor is not valid");
+        }
+    }
+
+    public String encode() {
+        String value = timestamp + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
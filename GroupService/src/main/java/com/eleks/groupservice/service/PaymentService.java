@@ -1,12 +1,17 @@
 package com.eleks.groupservice.service;
 
+import com.eleks.groupservice.dto.PaymentBatchResponseDto;
 import com.eleks.groupservice.dto.PaymentRequestDto;
 import com.eleks.groupservice.dto.PaymentResponseDto;
+import com.eleks.groupservice.dto.PaymentsPageResponseDto;
+import com.eleks.groupservice.exception.InvalidBatchRequestException;
+import com.eleks.groupservice.exception.InvalidPageRequestException;
 import com.eleks.groupservice.exception.ResourceNotFoundException;
 import com.eleks.groupservice.exception.UsersIdsValidationException;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface PaymentService {
     void deletePayment(Long groupId, Long paymentId) throws ResourceNotFoundException;
@@ -15,5 +20,12 @@ public interface PaymentService {
 
     Optional<List<PaymentResponseDto>> getPayments(Long groupId);
 
+    Optional<PaymentsPageResponseDto> getPaymentsPage(Long groupId, String cursor, int limit) throws InvalidPageRequestException;
+
+    void streamPayments(Long groupId, Consumer<PaymentResponseDto> consumer) throws ResourceNotFoundException;
+
     PaymentResponseDto createPayment(Long groupId, Long creatorId, PaymentRequestDto requestDto) throws ResourceNotFoundException, UsersIdsValidationException;
+
+    PaymentBatchResponseDto createPayments(Long groupId, Long creatorId, List<PaymentRequestDto> requestDtos)
+            throws ResourceNotFoundException, InvalidBatchRequestException;
 }
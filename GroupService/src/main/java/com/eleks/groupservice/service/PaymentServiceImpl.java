@@ -1,63 +1,147 @@
 package com.eleks.groupservice.service;
 
 import com.eleks.groupservice.domain.Group;
+import com.eleks.groupservice.domain.LongIdSet;
 import com.eleks.groupservice.domain.Payment;
+import com.eleks.groupservice.dto.PaymentBatchItemResultDto;
+import com.eleks.groupservice.dto.PaymentBatchResponseDto;
 import com.eleks.groupservice.dto.PaymentRequestDto;
 import com.eleks.groupservice.dto.PaymentResponseDto;
+import com.eleks.groupservice.dto.PaymentsPageResponseDto;
+import com.eleks.groupservice.exception.InvalidBatchRequestException;
+import com.eleks.groupservice.exception.InvalidPageRequestException;
 import com.eleks.groupservice.exception.ResourceNotFoundException;
 import com.eleks.groupservice.exception.UsersIdsValidationException;
 import com.eleks.groupservice.mapper.PaymentMapper;
 import com.eleks.groupservice.repository.GroupRepository;
 import com.eleks.groupservice.repository.PaymentRepository;
 import com.eleks.groupservice.service.PaymentService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class PaymentServiceImpl implements PaymentService {
 
+    static final int MAX_PAGE_SIZE = 500;
+
+    static final int MAX_BATCH_SIZE = 5000;
+
     private GroupRepository groupRepository;
     private PaymentRepository paymentRepository;
+    private BalanceLedgerService balanceLedgerService;
+    private BalanceSnapshotService balanceSnapshotService;
+    private EntityManager entityManager;
+    private Validator validator;
+    private int jdbcBatchSize;
 
-    public PaymentServiceImpl(GroupRepository groupRepository, PaymentRepository paymentRepository) {
+    public PaymentServiceImpl(GroupRepository groupRepository, PaymentRepository paymentRepository,
+                              BalanceLedgerService balanceLedgerService, BalanceSnapshotService balanceSnapshotService,
+                              EntityManager entityManager, Validator validator,
+                              @Value("${spring.jpa.properties.hibernate.jdbc.batch_size}") int jdbcBatchSize) {
         this.groupRepository = groupRepository;
         this.paymentRepository = paymentRepository;
+        this.balanceLedgerService = balanceLedgerService;
+        this.balanceSnapshotService = balanceSnapshotService;
+        this.entityManager = entityManager;
+        this.validator = validator;
+        this.jdbcBatchSize = jdbcBatchSize;
     }
 
     @Override
+    @Transactional
     public PaymentResponseDto createPayment(Long groupId, Long creatorId, PaymentRequestDto requestDto)
             throws ResourceNotFoundException, UsersIdsValidationException {
-        Group group = groupRepository.findById(groupId)
+        Group group = groupRepository.lockById(groupId)
+                .flatMap(groupRepository::findById)
                 .orElseThrow(() -> new ResourceNotFoundException("Group doesn't exist"));
 
         if (!group.getMembers().containsAll(requestDto.getCoPayers())) {
             throw new UsersIdsValidationException("Co-payers are not members of group");
         }
 
-        Payment payment = PaymentMapper.toEntity(creatorId, group, requestDto);
-        return PaymentMapper.toDto(paymentRepository.save(payment));
+        Payment payment = paymentRepository.save(PaymentMapper.toEntity(creatorId, group, requestDto));
+        balanceLedgerService.applyPayment(payment);
+        balanceSnapshotService.invalidateSnapshot(payment);
+        return PaymentMapper.toDto(payment);
     }
 
+    /**
+     * Items failing validation are reported as rejected and don't stop the other items from being imported.
+     * Valid items are inserted in JDBC batches, flushing and clearing the persistence context after every batch.
+     */
     @Override
-    public Optional<PaymentResponseDto> getPayment(Long groupId, Long paymentId) {
-        Optional<Group> groupResult = groupRepository.findById(groupId);
-        if (groupResult.isPresent()) {
-            return groupResult.get()
-                    .getPayments()
-                    .stream()
-                    .filter(payment -> payment.getId().equals(paymentId))
-                    .findFirst()
-                    .map(PaymentMapper::toDto);
+    @Transactional
+    public PaymentBatchResponseDto createPayments(Long groupId, Long creatorId, List<PaymentRequestDto> requestDtos)
+            throws ResourceNotFoundException, InvalidBatchRequestException {
+        if (requestDtos == null || requestDtos.isEmpty() || requestDtos.size() > MAX_BATCH_SIZE) {
+            throw new InvalidBatchRequestException("Batch must contain between 1 and " + MAX_BATCH_SIZE + " payments");
         }
-        return Optional.empty();
+        Group group = groupRepository.lockById(groupId)
+                .flatMap(groupRepository::findById)
+                .orElseThrow(() -> new ResourceNotFoundException("Group doesn't exist"));
+        LongIdSet members = LongIdSet.copyOf(group.getMembers());
+
+        List<PaymentBatchItemResultDto> results = new ArrayList<>(requestDtos.size());
+        List<Payment> payments = new ArrayList<>();
+        for (int index = 0; index < requestDtos.size(); index++) {
+            PaymentRequestDto requestDto = requestDtos.get(index);
+            List<String> errors = validate(requestDto, members);
+            if (errors.isEmpty()) {
+                payments.add(PaymentMapper.toEntity(creatorId, group, requestDto));
+            }
+            results.add(PaymentBatchItemResultDto.builder()
+                    .index(index)
+                    .created(errors.isEmpty())
+                    .errors(errors.isEmpty() ? null : errors)
+                    .build());
+        }
+
+        for (int from = 0; from < payments.size(); from += jdbcBatchSize) {
+            paymentRepository.saveAll(payments.subList(from, Math.min(from + jdbcBatchSize, payments.size())));
+            entityManager.flush();
+            entityManager.clear();
+        }
+        if (!payments.isEmpty()) {
+            balanceLedgerService.applyPayments(groupId, payments);
+            balanceSnapshotService.invalidateSnapshot(groupId, payments);
+        }
+
+        int created = 0;
+        for (PaymentBatchItemResultDto result : results) {
+            if (result.isCreated()) {
+                result.setPayment(PaymentMapper.toDto(payments.get(created++)));
+            }
+        }
+        return PaymentBatchResponseDto.builder()
+                .created(created)
+                .rejected(results.size() - created)
+                .results(results)
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<PaymentResponseDto> getPayment(Long groupId, Long paymentId) {
+        return paymentRepository.findByIdAndGroupId(paymentId, groupId).map(PaymentMapper::toDto);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<List<PaymentResponseDto>> getPayments(Long groupId) {
-        Optional<Group> groupResult = groupRepository.findById(groupId);
+        Optional<Group> groupResult = groupRepository.findWithPaymentsById(groupId);
         if (groupResult.isPresent()) {
             List<PaymentResponseDto> result = groupResult.get()
                     .getPayments()
@@ -70,13 +154,72 @@ public class PaymentServiceImpl implements PaymentService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Optional<PaymentsPageResponseDto> getPaymentsPage(Long groupId, String cursor, int limit)
+            throws InvalidPageRequestException {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new InvalidPageRequestException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        PaymentCursor after = cursor == null ? null : PaymentCursor.decode(cursor);
+        if (!groupRepository.existsById(groupId)) {
+            return Optional.empty();
+        }
+
+        PageRequest page = PageRequest.of(0, limit + 1);
+        List<Long> ids = after == null
+                ? paymentRepository.findPageIdsByGroupId(groupId, page)
+                : paymentRepository.findPageIdsByGroupIdAfter(groupId, after.getTimestamp(), after.getId(), page);
+        boolean hasNext = ids.size() > limit;
+        List<Payment> payments = ids.isEmpty()
+                ? Collections.emptyList()
+                : paymentRepository.findAllWithCoPayersByIdIn(ids.subList(0, Math.min(limit, ids.size())));
+
+        return Optional.of(PaymentsPageResponseDto.builder()
+                .payments(payments.stream().map(PaymentMapper::toDto).collect(Collectors.toList()))
+                .nextCursor(hasNext ? PaymentCursor.of(payments.get(payments.size() - 1)).encode() : null)
+                .build());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamPayments(Long groupId, Consumer<PaymentResponseDto> consumer) throws ResourceNotFoundException {
+        if (!groupRepository.existsById(groupId)) {
+            throw new ResourceNotFoundException("group does't exist");
+        }
+        try (Stream<Payment> payments = paymentRepository.streamAllByGroupId(groupId)) {
+            payments.forEach(payment -> {
+                consumer.accept(PaymentMapper.toDto(payment));
+                entityManager.detach(payment);
+            });
+        }
+    }
+
+    @Override
+    @Transactional
     public void deletePayment(Long groupId, Long paymentId) throws ResourceNotFoundException {
-         paymentRepository.findById(paymentId)
-                .filter(payment -> payment.getGroup().getId().equals(groupId))
-                .map(payment -> {
-                    paymentRepository.deleteById(payment.getId());
-                    return payment;
-                })
+        Payment payment = groupRepository.lockById(groupId)
+                .flatMap(lockedGroupId -> paymentRepository.findByIdAndGroupId(paymentId, groupId))
                 .orElseThrow(() -> new ResourceNotFoundException("Payment doesn't exists"));
+        balanceLedgerService.revertPayment(payment);
+        balanceSnapshotService.invalidateSnapshot(payment);
+        paymentRepository.deleteCoPayersByPaymentId(paymentId);
+        if (paymentRepository.deleteByIdAndGroupId(paymentId, groupId) == 0) {
+            throw new ResourceNotFoundException("Payment doesn't exists");
+        }
+    }
+
+    private List<String> validate(PaymentRequestDto requestDto, LongIdSet members) {
+        if (requestDto == null) {
+            return Collections.singletonList("payment is required");
+        }
+        List<String> errors = validator.validate(requestDto)
+                .stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.toList());
+        if (requestDto.getCoPayers() != null && !members.containsAll(LongIdSet.copyOf(requestDto.getCoPayers()))) {
+            errors.add("Co-payers are not members of group");
+        }
+        return errors;
     }
 }
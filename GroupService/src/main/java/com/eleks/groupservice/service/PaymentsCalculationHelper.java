@@ -1,36 +1,231 @@
 package com.eleks.groupservice.service;
 
+import com.eleks.groupservice.domain.GroupBalanceId;
+import com.eleks.groupservice.domain.LongIdSet;
 import com.eleks.groupservice.domain.Payment;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
 
+/**
+ * All amounts are in minor units of the group currency. A price which can't be split evenly gives the
+ * remaining minor units to the co-payers with the lowest ids, one unit each.
+ * <p>
+ * Overloads taking a {@link ForkJoinPool} split payment lists of at least {@code parallelThreshold} payments
+ * into chunks, reduce every chunk into its own accumulator on the pool and merge the partial results.
+ */
 public class PaymentsCalculationHelper {
 
-    public static Map<Long, Double> calculateValues(Long requesterId, List<Payment> payments, List<Long> otherMembersIds) {
-        Map<Long, Double> values = new HashMap<>();
-        otherMembersIds.forEach(memberId -> {
-            values.put(memberId, 0D);
-            payments.forEach(payment -> {
-                Double value = calculateValueForUserPerPayment(requesterId, memberId, payment);
-                values.put(memberId, values.get(memberId) + value);
-            });
+    private static final int MIN_CHUNK_SIZE = 1024;
+
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    public static Map<Long, Long> calculateValues(Long requesterId, List<Payment> payments, List<Long> otherMembersIds) {
+        Map<Long, Integer> slots = indexMembers(otherMembersIds);
+        return toValues(slots, accumulateValues(requesterId, payments, slots));
+    }
+
+    public static Map<Long, Long> calculateDebtsToCreator(Payment payment) {
+        Map<Long, Long> debts = new HashMap<>();
+        LongIdSet coPayers = coPayersOf(payment);
+        Long creatorId = payment.getCreatorId();
+        if (coPayers == null || !coPayers.contains(creatorId)) {
+            return debts;
+        }
+        long price = payment.getPrice();
+        int count = coPayers.size();
+        for (int position = 0; position < count; position++) {
+            long coPayerId = coPayers.get(position);
+            if (coPayerId != creatorId) {
+                debts.put(coPayerId, shareOf(price, count, position));
+            }
+        }
+        return debts;
+    }
+
+    public static void addPairwiseDebts(Map<GroupBalanceId, Long> amounts, Long groupId, Payment payment) {
+        Long creatorId = payment.getCreatorId();
+        calculateDebtsToCreator(payment).forEach((debtorId, debt) -> {
+            amounts.merge(new GroupBalanceId(groupId, creatorId, debtorId), debt, Long::sum);
+            amounts.merge(new GroupBalanceId(groupId, debtorId, creatorId), -debt, Long::sum);
         });
+    }
+
+    public static Map<Long, Long> calculateNetPositions(List<Payment> payments) {
+        return accumulateNetPositions(payments);
+    }
+
+    public static Map<Long, Long> calculateNetPositions(List<Payment> payments, ForkJoinPool pool, int parallelThreshold) {
+        return reduceInChunks(payments, pool, parallelThreshold,
+                PaymentsCalculationHelper::accumulateNetPositions, PaymentsCalculationHelper::mergeAll);
+    }
+
+    public static BalanceMatrix calculateBalanceMatrix(List<Payment> payments, List<Long> membersIds) {
+        Map<Long, Integer> slots = indexMembers(membersIds);
+        return toBalanceMatrix(slots, accumulateMatrix(payments, slots));
+    }
+
+    public static BalanceMatrix calculateBalanceMatrix(List<Payment> payments, List<Long> membersIds,
+                                                       ForkJoinPool pool, int parallelThreshold) {
+        Map<Long, Integer> slots = indexMembers(membersIds);
+        long[] amounts = reduceInChunks(payments, pool, parallelThreshold,
+                chunk -> accumulateMatrix(chunk, slots), PaymentsCalculationHelper::addAll);
+        return toBalanceMatrix(slots, amounts);
+    }
+
+    static long shareOf(long price, int coPayersCount, int position) {
+        long share = price / coPayersCount;
+        return position < price % coPayersCount ? share + 1 : share;
+    }
+
+    private static <T> T reduceInChunks(List<Payment> payments, ForkJoinPool pool, int parallelThreshold,
+                                        Function<List<Payment>, T> reducer, BinaryOperator<T> merger) {
+        if (payments.size() < parallelThreshold) {
+            return reducer.apply(payments);
+        }
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, payments.size() / (pool.getParallelism() * CHUNKS_PER_THREAD));
+        return pool.invoke(new ChunkTask<>(new ArrayList<>(payments), chunkSize, reducer, merger));
+    }
+
+    private static Map<Long, Long> accumulateNetPositions(List<Payment> payments) {
+        Map<Long, Long> positions = new HashMap<>();
+        for (Payment payment : payments) {
+            Long creatorId = payment.getCreatorId();
+            calculateDebtsToCreator(payment).forEach((debtorId, debt) -> {
+                positions.merge(creatorId, debt, Long::sum);
+                positions.merge(debtorId, -debt, Long::sum);
+            });
+        }
+        return positions;
+    }
+
+    private static long[] accumulateValues(Long requesterId, List<Payment> payments, Map<Long, Integer> slots) {
+        long[] balances = new long[slots.size()];
+        if (!slots.isEmpty()) {
+            for (Payment payment : payments) {
+                accumulatePayment(requesterId, payment, slots, balances);
+            }
+        }
+        return balances;
+    }
+
+    private static long[] accumulateMatrix(List<Payment> payments, Map<Long, Integer> slots) {
+        int size = slots.size();
+        long[] amounts = new long[size * size];
+
+        for (Payment payment : payments) {
+            LongIdSet coPayers = coPayersOf(payment);
+            Long creatorId = payment.getCreatorId();
+            Integer creatorSlot = slots.get(creatorId);
+            if (creatorSlot == null || coPayers == null || !coPayers.contains(creatorId)) {
+                continue;
+            }
+            long price = payment.getPrice();
+            int count = coPayers.size();
+            for (int position = 0; position < count; position++) {
+                long coPayerId = coPayers.get(position);
+                Integer slot = slots.get(coPayerId);
+                if (slot != null && coPayerId != creatorId) {
+                    long share = shareOf(price, count, position);
+                    amounts[creatorSlot * size + slot] += share;
+                    amounts[slot * size + creatorSlot] -= share;
+                }
+            }
+        }
+        return amounts;
+    }
+
+    private static Map<Long, Long> toValues(Map<Long, Integer> slots, long[] balances) {
+        Map<Long, Long> values = new HashMap<>();
+        slots.forEach((memberId, slot) -> values.put(memberId, balances[slot]));
         return values;
     }
 
-    private static Double calculateValueForUserPerPayment(Long requesterId, Long memberId, Payment payment) {
-        List<Long> coPayers = payment.getCoPayers();
-        if (coPayers.contains(requesterId) && coPayers.contains(memberId)) {
-            double bill = payment.getPrice() / payment.getCoPayers().size();
-            if (payment.getCreatorId().equals(requesterId)) {
-                return bill;
-            } else if (payment.getCreatorId().equals(memberId)) {
-                return -bill;
+    private static BalanceMatrix toBalanceMatrix(Map<Long, Integer> slots, long[] amounts) {
+        Long[] slotsIds = new Long[slots.size()];
+        slots.forEach((memberId, slot) -> slotsIds[slot] = memberId);
+        return new BalanceMatrix(Arrays.asList(slotsIds), slots, amounts);
+    }
+
+    private static long[] addAll(long[] target, long[] source) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] += source[i];
+        }
+        return target;
+    }
+
+    private static Map<Long, Long> mergeAll(Map<Long, Long> target, Map<Long, Long> source) {
+        source.forEach((userId, amount) -> target.merge(userId, amount, Long::sum));
+        return target;
+    }
+
+    private static LongIdSet coPayersOf(Payment payment) {
+        return payment.getCoPayers() == null ? null : LongIdSet.copyOf(payment.getCoPayers());
+    }
+
+    private static Map<Long, Integer> indexMembers(List<Long> membersIds) {
+        Map<Long, Integer> slots = new HashMap<>();
+        for (Long memberId : membersIds) {
+            slots.putIfAbsent(memberId, slots.size());
+        }
+        return slots;
+    }
+
+    private static void accumulatePayment(Long requesterId, Payment payment, Map<Long, Integer> slots, long[] balances) {
+        LongIdSet coPayers = coPayersOf(payment);
+        int requesterPosition = coPayers == null ? -1 : coPayers.indexOf(requesterId);
+        if (requesterPosition < 0) {
+            return;
+        }
+        long price = payment.getPrice();
+        int count = coPayers.size();
+        Long creatorId = payment.getCreatorId();
+
+        if (requesterId.equals(creatorId)) {
+            for (int position = 0; position < count; position++) {
+                Integer slot = slots.get(coPayers.get(position));
+                if (slot != null) {
+                    balances[slot] += shareOf(price, count, position);
+                }
+            }
+        } else {
+            Integer slot = slots.get(creatorId);
+            if (slot != null && coPayers.contains(creatorId)) {
+                balances[slot] -= shareOf(price, count, requesterPosition);
+            }
+        }
+    }
+
+    private static class ChunkTask<T> extends RecursiveTask<T> {
+        private final List<Payment> payments;
+        private final int chunkSize;
+        private final Function<List<Payment>, T> reducer;
+        private final BinaryOperator<T> merger;
+
+        private ChunkTask(List<Payment> payments, int chunkSize, Function<List<Payment>, T> reducer, BinaryOperator<T> merger) {
+            this.payments = payments;
+            this.chunkSize = chunkSize;
+            this.reducer = reducer;
+            this.merger = merger;
+        }
+
+        @Override
+        protected T compute() {
+            if (payments.size() <= chunkSize) {
+                return reducer.apply(payments);
             }
+            int middle = payments.size() / 2;
+            ChunkTask<T> left = new ChunkTask<>(payments.subList(0, middle), chunkSize, reducer, merger);
+            left.fork();
+            T right = new ChunkTask<>(payments.subList(middle, payments.size()), chunkSize, reducer, merger).compute();
+            return merger.apply(left.join(), right);
         }
-        return 0D;
     }
 }
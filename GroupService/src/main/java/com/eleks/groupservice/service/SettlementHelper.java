@@ -0,0 +1,129 @@
+package com.eleks.groupservice.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+public class SettlementHelper {
+
+    static final int EXACT_MODE_MAX_PARTICIPANTS = 15;
+
+    private static final Comparator<Position> BY_AMOUNT_DESC = Comparator
+            .comparingLong(Position::getAmount).reversed()
+            .thenComparing(Position::getUserId);
+
+    private static final Comparator<Position> BY_AMOUNT_ASC = Comparator
+            .comparingLong(Position::getAmount)
+            .thenComparing(Position::getUserId);
+
+    public static List<Transfer> planTransfers(Map<Long, Long> netPositions) {
+        List<Position> positions = new ArrayList<>();
+        netPositions.forEach((userId, amount) -> {
+            if (amount != 0) {
+                positions.add(new Position(userId, amount));
+            }
+        });
+        positions.sort(Comparator.comparing(Position::getUserId));
+
+        if (positions.size() > EXACT_MODE_MAX_PARTICIPANTS) {
+            return planGreedyTransfers(positions);
+        }
+        List<Transfer> transfers = new ArrayList<>();
+        splitIntoZeroSumGroups(positions).forEach(group -> transfers.addAll(planGreedyTransfers(group)));
+        return transfers;
+    }
+
+    static List<Transfer> planGreedyTransfers(List<Position> positions) {
+        PriorityQueue<Position> creditors = new PriorityQueue<>(BY_AMOUNT_DESC);
+        PriorityQueue<Position> debtors = new PriorityQueue<>(BY_AMOUNT_ASC);
+        positions.forEach(position -> {
+            if (position.getAmount() > 0) {
+                creditors.add(new Position(position.getUserId(), position.getAmount()));
+            } else if (position.getAmount() < 0) {
+                debtors.add(new Position(position.getUserId(), position.getAmount()));
+            }
+        });
+
+        List<Transfer> transfers = new ArrayList<>();
+        while (!creditors.isEmpty() && !debtors.isEmpty()) {
+            Position creditor = creditors.poll();
+            Position debtor = debtors.poll();
+            long amount = Math.min(creditor.getAmount(), -debtor.getAmount());
+            transfers.add(new Transfer(debtor.getUserId(), creditor.getUserId(), amount));
+
+            creditor.setAmount(creditor.getAmount() - amount);
+            debtor.setAmount(debtor.getAmount() + amount);
+            if (creditor.getAmount() > 0) {
+                creditors.add(creditor);
+            }
+            if (debtor.getAmount() < 0) {
+                debtors.add(debtor);
+            }
+        }
+        return transfers;
+    }
+
+    /*
+     * A zero-sum group of k participants can always be settled with k - 1 transfers, so the minimum number
+     * of transfers is reached by splitting participants into as many zero-sum groups as possible.
+     * zeroSumGroups[mask] holds that maximum for the subset encoded by mask.
+     */
+    private static List<List<Position>> splitIntoZeroSumGroups(List<Position> positions) {
+        int full = (1 << positions.size()) - 1;
+        long[] sums = new long[full + 1];
+        int[] zeroSumGroups = new int[full + 1];
+        for (int mask = 1; mask <= full; mask++) {
+            sums[mask] = sums[mask & (mask - 1)] + positions.get(Integer.numberOfTrailingZeros(mask)).getAmount();
+            int best = 0;
+            for (int rest = mask; rest != 0; rest &= rest - 1) {
+                best = Math.max(best, zeroSumGroups[mask & ~Integer.lowestOneBit(rest)]);
+            }
+            zeroSumGroups[mask] = best + (sums[mask] == 0 ? 1 : 0);
+        }
+
+        List<List<Position>> groups = new ArrayList<>();
+        int boundary = full;
+        int mask = full;
+        while (mask != 0) {
+            int target = zeroSumGroups[mask] - (sums[mask] == 0 ? 1 : 0);
+            int rest = mask;
+            while (zeroSumGroups[mask & ~Integer.lowestOneBit(rest)] != target) {
+                rest &= rest - 1;
+            }
+            mask &= ~Integer.lowestOneBit(rest);
+            if (sums[mask] == 0) {
+                groups.add(positionsOf(positions, boundary & ~mask));
+                boundary = mask;
+            }
+        }
+        return groups;
+    }
+
+    private static List<Position> positionsOf(List<Position> positions, int mask) {
+        List<Position> result = new ArrayList<>();
+        for (int rest = mask; rest != 0; rest &= rest - 1) {
+            result.add(positions.get(Integer.numberOfTrailingZeros(rest)));
+        }
+        return result;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class Position {
+        private Long userId;
+        private long amount;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Transfer {
+        private Long fromUserId;
+        private Long toUserId;
+        private long amount;
+    }
+}
@@ -0,0 +1,49 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Copies the ';'-joined payment.co_payers column into payment_co_payer rows. Rows written before co-payers were
+ * deduplicated may repeat an id, which is inserted once.
+ */
+public class V11__BackfillPaymentCoPayers extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        try (Statement select = connection.createStatement();
+             ResultSet payments = select.executeQuery("SELECT id, co_payers FROM payment WHERE co_payers IS NOT NULL");
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO payment_co_payer(payment_id, user_id) VALUES (?, ?)")) {
+            int batched = 0;
+            while (payments.next()) {
+                long paymentId = payments.getLong("id");
+                Set<Long> coPayersIds = new HashSet<>();
+                for (String coPayer : payments.getString("co_payers").split(";")) {
+                    if (!coPayer.trim().isEmpty()) {
+                        coPayersIds.add(Long.parseLong(coPayer.trim()));
+                    }
+                }
+                for (Long coPayerId : coPayersIds) {
+                    insert.setLong(1, paymentId);
+                    insert.setLong(2, coPayerId);
+                    insert.addBatch();
+                    if (++batched % BATCH_SIZE == 0) {
+                        insert.executeBatch();
+                    }
+                }
+            }
+            insert.executeBatch();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recomputes group_balance from the payment and payment_co_payer rows, so the ledger of payments created before it
+ * was maintained matches the current split: leftover minor units go to the co-payers with the lowest ids, one unit
+ * each. Payments whose creator isn't one of their co-payers don't move any balance.
+ */
+public class V17__RebuildGroupBalances extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DELETE FROM group_balance");
+        }
+        try (Statement select = connection.createStatement();
+             ResultSet rows = select.executeQuery("SELECT p.id, p.group_id, p.creator_id, p.price, c.user_id " +
+                     "FROM payment p JOIN payment_co_payer c ON c.payment_id = p.id " +
+                     "WHERE p.group_id IS NOT NULL AND p.creator_id IS NOT NULL " +
+                     "ORDER BY p.group_id, p.id, c.user_id");
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO group_balance(group_id, user_a, user_b, amount) VALUES (?, ?, ?, ?)")) {
+            Map<List<Long>, Long> amounts = new HashMap<>();
+            List<Long> coPayersIds = new ArrayList<>();
+            long groupId = 0;
+            long paymentId = 0;
+            long creatorId = 0;
+            long price = 0;
+            boolean started = false;
+            while (rows.next()) {
+                long rowPaymentId = rows.getLong("id");
+                long rowGroupId = rows.getLong("group_id");
+                if (started && rowPaymentId != paymentId) {
+                    addDebts(amounts, creatorId, price, coPayersIds);
+                    coPayersIds.clear();
+                    if (rowGroupId != groupId) {
+                        insertAmounts(insert, groupId, amounts);
+                        amounts.clear();
+                    }
+                }
+                started = true;
+                paymentId = rowPaymentId;
+                groupId = rowGroupId;
+                creatorId = rows.getLong("creator_id");
+                price = rows.getLong("price");
+                coPayersIds.add(rows.getLong("user_id"));
+            }
+            if (started) {
+                addDebts(amounts, creatorId, price, coPayersIds);
+                insertAmounts(insert, groupId, amounts);
+            }
+        }
+    }
+
+    private static void addDebts(Map<List<Long>, Long> amounts, long creatorId, long price, List<Long> coPayersIds) {
+        int count = coPayersIds.size();
+        if (!coPayersIds.contains(creatorId)) {
+            return;
+        }
+        for (int position = 0; position < count; position++) {
+            long debtorId = coPayersIds.get(position);
+            if (debtorId != creatorId) {
+                long share = price / count + (position < price % count ? 1 : 0);
+                amounts.merge(pair(creatorId, debtorId), share, Long::sum);
+                amounts.merge(pair(debtorId, creatorId), -share, Long::sum);
+            }
+        }
+    }
+
+    private static void insertAmounts(PreparedStatement insert, long groupId, Map<List<Long>, Long> amounts)
+            throws Exception {
+        int batched = 0;
+        for (Map.Entry<List<Long>, Long> amount : amounts.entrySet()) {
+            insert.setLong(1, groupId);
+            insert.setLong(2, amount.getKey().get(0));
+            insert.setLong(3, amount.getKey().get(1));
+            insert.setLong(4, amount.getValue());
+            insert.addBatch();
+            if (++batched % BATCH_SIZE == 0) {
+                insert.executeBatch();
+            }
+        }
+        insert.executeBatch();
+    }
+
+    private static List<Long> pair(long userA, long userB) {
+        List<Long> pair = new ArrayList<>(2);
+        pair.add(userA);
+        pair.add(userB);
+        return pair;
+    }
+}
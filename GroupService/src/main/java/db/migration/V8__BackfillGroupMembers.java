@@ -0,0 +1,43 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Copies the ';'-joined user_group.members column into group_member rows. Rows written before members were
+ * deduplicated may repeat an id, which is inserted once.
+ */
+public class V8__BackfillGroupMembers extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        try (Statement select = connection.createStatement();
+             ResultSet groups = select.executeQuery("SELECT id, members FROM user_group WHERE members IS NOT NULL");
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO group_member(group_id, user_id) VALUES (?, ?)")) {
+            while (groups.next()) {
+                long groupId = groups.getLong("id");
+                Set<Long> membersIds = new HashSet<>();
+                for (String member : groups.getString("members").split(";")) {
+                    if (!member.trim().isEmpty()) {
+                        membersIds.add(Long.parseLong(member.trim()));
+                    }
+                }
+                for (Long memberId : membersIds) {
+                    insert.setLong(1, groupId);
+                    insert.setLong(2, memberId);
+                    insert.addBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+CREATE TABLE payment_co_payer(
+  payment_id BIGINT NOT NULL,
+  user_id BIGINT NOT NULL,
+  PRIMARY KEY (payment_id, user_id)
+);
+
+CREATE INDEX idx_payment_co_payer_user_id ON payment_co_payer(user_id, payment_id);
@@ -0,0 +1,4 @@
+-- payment_co_payer was backfilled from the co_payers column by V11 and is now the only source of co-payers
+ALTER TABLE payment DROP COLUMN co_payers;
+
+ALTER TABLE payment_co_payer ADD CONSTRAINT fk_payment_co_payer_payment FOREIGN KEY (payment_id) REFERENCES payment(id);
@@ -0,0 +1 @@
+CREATE INDEX idx_payment_group_timestamp_id ON payment(group_id, timestamp, id);
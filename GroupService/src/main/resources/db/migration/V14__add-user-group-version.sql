@@ -0,0 +1 @@
+ALTER TABLE user_group ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
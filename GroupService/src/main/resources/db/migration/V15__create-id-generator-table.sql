@@ -0,0 +1,7 @@
+CREATE TABLE id_generator(
+  sequence_name VARCHAR(64) NOT NULL PRIMARY KEY,
+  next_val BIGINT NOT NULL
+);
+
+INSERT INTO id_generator(sequence_name, next_val)
+SELECT 'payment', COALESCE(MAX(id), 0) + 1 FROM payment;
@@ -0,0 +1,4 @@
+-- serves the group payment lists ordered by id and the snapshot catch-up query (group_id = ? and id > ?)
+CREATE INDEX idx_payment_group_id_id ON payment(group_id, id);
+
+ALTER TABLE payment ADD CONSTRAINT fk_payment_group FOREIGN KEY (group_id) REFERENCES user_group(id);
@@ -0,0 +1,7 @@
+CREATE TABLE group_balance(
+  group_id BIGINT NOT NULL,
+  user_a BIGINT NOT NULL,
+  user_b BIGINT NOT NULL,
+  amount DOUBLE NOT NULL,
+  PRIMARY KEY (group_id, user_a, user_b)
+);
@@ -0,0 +1,6 @@
+-- every supported currency (UAH, USD, EUR) has two decimal places
+UPDATE payment SET price = ROUND(price * 100);
+ALTER TABLE payment MODIFY price BIGINT NOT NULL;
+
+UPDATE group_balance SET amount = ROUND(amount * 100);
+ALTER TABLE group_balance MODIFY amount BIGINT NOT NULL;
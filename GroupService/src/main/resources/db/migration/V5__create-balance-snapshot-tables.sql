@@ -0,0 +1,14 @@
+CREATE TABLE balance_snapshot(
+  group_id BIGINT NOT NULL,
+  last_payment_id BIGINT NOT NULL,
+  created_at TIMESTAMP NOT NULL,
+  PRIMARY KEY (group_id)
+);
+
+CREATE TABLE balance_snapshot_entry(
+  group_id BIGINT NOT NULL,
+  user_a BIGINT NOT NULL,
+  user_b BIGINT NOT NULL,
+  amount BIGINT NOT NULL,
+  PRIMARY KEY (group_id, user_a, user_b)
+);
@@ -0,0 +1,9 @@
+CREATE TABLE group_member(
+  group_id BIGINT NOT NULL,
+  user_id BIGINT NOT NULL,
+  PRIMARY KEY (group_id, user_id)
+);
+
+CREATE INDEX idx_group_member_user_id ON group_member(user_id, group_id);
+
+CREATE INDEX idx_group_balance_user_a ON group_balance(user_a, group_id);
@@ -0,0 +1,4 @@
+-- group_member was backfilled from the members column by V8 and is now the only source of membership
+ALTER TABLE user_group DROP COLUMN members;
+
+ALTER TABLE group_member ADD CONSTRAINT fk_group_member_group FOREIGN KEY (group_id) REFERENCES user_group(id);
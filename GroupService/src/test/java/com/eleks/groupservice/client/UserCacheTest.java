@@ -0,0 +1,109 @@
+package com.eleks.groupservice.client;
+
+import com.eleks.groupservice.dto.UserDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserCacheTest {
+
+    private MeterRegistry meterRegistry;
+    private AtomicLong nanoTime;
+    private UserCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        nanoTime = new AtomicLong();
+        cache = new UserCache(2, 1000, meterRegistry, nanoTime::get);
+    }
+
+    @Test
+    void getAll_UserIsCached_ReturnCachedUserAndCountHit() {
+        cache.putAll(singletonList(user(1L)));
+        Map<Long, UserDto> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+
+        cache.getAll(Arrays.asList(1L, 2L), found, missing);
+
+        assertEquals(user(1L), found.get(1L));
+        assertEquals(singletonList(2L), missing);
+        assertEquals(1.0, meterRegistry.counter("userservice.cache.gets", "result", "hit").count());
+        assertEquals(1.0, meterRegistry.counter("userservice.cache.gets", "result", "miss").count());
+    }
+
+    @Test
+    void getAll_EntryIsOlderThanTtl_EvictEntryAndReportMiss() {
+        cache.putAll(singletonList(user(1L)));
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+        Map<Long, UserDto> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+
+        cache.getAll(singletonList(1L), found, missing);
+
+        assertTrue(found.isEmpty());
+        assertEquals(singletonList(1L), missing);
+        assertEquals(0, cache.size());
+        assertEquals(1.0, meterRegistry.counter("userservice.cache.evictions", "cause", "expired").count());
+    }
+
+    @Test
+    void putAll_MaxSizeExceeded_EvictLeastRecentlyUsedEntry() {
+        cache.putAll(Arrays.asList(user(1L), user(2L)));
+        cache.getAll(singletonList(1L), new HashMap<>(), new ArrayList<>());
+
+        cache.putAll(singletonList(user(3L)));
+
+        Map<Long, UserDto> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        cache.getAll(Arrays.asList(1L, 2L, 3L), found, missing);
+        assertEquals(2, cache.size());
+        assertEquals(singletonList(2L), missing);
+        assertEquals(1.0, meterRegistry.counter("userservice.cache.evictions", "cause", "size").count());
+        assertEquals(2.0, meterRegistry.get("userservice.cache.size").gauge().value());
+    }
+
+    @Test
+    void putAll_EntryExpiredAndMaxSizeNotExceeded_KeepEntryUntilRead() {
+        cache.putAll(singletonList(user(1L)));
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+
+        cache.putAll(singletonList(user(2L)));
+
+        assertEquals(2, cache.size());
+        assertEquals(0.0, meterRegistry.counter("userservice.cache.evictions", "cause", "expired").count());
+    }
+
+    @Test
+    void putAll_MaxSizeExceeded_EvictExpiredEntriesBeforeLeastRecentlyUsed() {
+        cache.putAll(singletonList(user(1L)));
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+        cache.putAll(singletonList(user(2L)));
+
+        cache.putAll(singletonList(user(3L)));
+
+        Map<Long, UserDto> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        cache.getAll(Arrays.asList(2L, 3L), found, missing);
+        assertEquals(2, found.size());
+        assertEquals(1.0, meterRegistry.counter("userservice.cache.evictions", "cause", "expired").count());
+        assertEquals(0.0, meterRegistry.counter("userservice.cache.evictions", "cause", "size").count());
+    }
+
+    private static UserDto user(Long id) {
+        return UserDto.builder().id(id).username("user" + id).build();
+    }
+}
@@ -5,6 +5,7 @@ import com.eleks.common.security.model.LoggedPrincipal;
 import com.eleks.groupservice.dto.UserDto;
 import com.eleks.groupservice.dto.UserSearchDto;
 import com.eleks.groupservice.exception.UserServiceException;
+import com.eleks.groupservice.exception.UserServiceUnavailableException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.tomakehurst.wiremock.WireMockServer;
 import com.google.common.collect.Lists;
@@ -18,6 +19,9 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static com.eleks.common.config.SecurityConstants.BEARER_TOKEN_PREFIX;
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
@@ -54,6 +58,9 @@ class UserClientTest {
     void setUpEach() {
         fakePrincipal = new LoggedPrincipal("testUser", 1L, "fake_token");
         when(securityPrincipalHolder.getPrincipal()).thenReturn(fakePrincipal);
+        client.clearCache();
+        client.resetCircuitBreaker();
+        wireMockServer.resetAll();
     }
 
     @AfterAll
@@ -175,6 +182,111 @@ class UserClientTest {
         assertEquals("Server error during request to UserService", exception.getMessage());
     }
 
+    @Test
+    void getUsersByIdsAsync_ServiceReturnsThreeUsers_ShouldCompleteWithListOfThreeUsers() throws Exception {
+        wireMockServer.stubFor(post(urlEqualTo("/users/search"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                        .withFixedDelay(100)
+                        .withBodyFile("user_search_response_with_three_users.json")));
+
+        CompletableFuture<List<UserDto>> result = client.getListOfUsersByIdsAsync(userIds);
+
+        assertFalse(result.isDone());
+        assertEquals(3, result.get(5, TimeUnit.SECONDS).size());
+        verifyPostOnSearchWithRequestDto(new UserSearchDto(userIds));
+    }
+
+    @Test
+    void getUsersByIdsAsync_ServiceReturnsBadRequest_ShouldCompleteWithEmptyList() throws Exception {
+        wireMockServer.stubFor(post(urlEqualTo("/users/search"))
+                .willReturn(status(400)));
+
+        List<UserDto> result = client.getListOfUsersByIdsAsync(userIds).get(5, TimeUnit.SECONDS);
+
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    void getUsersByIds_UsersAreCached_ShouldNotCallService() throws Exception {
+        wireMockServer.stubFor(post(urlEqualTo("/users/search"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                        .withBodyFile("user_search_response_with_three_users.json")));
+
+        client.getListOfUsersByIds(userIds);
+        List<UserDto> result = client.getListOfUsersByIds(userIds);
+
+        wireMockServer.verify(1, postRequestedFor(urlEqualTo("/users/search")));
+        assertEquals(3, result.size());
+    }
+
+    @Test
+    void getUsersByIds_SomeUsersAreCached_ShouldRequestOnlyMissingIds() throws Exception {
+        wireMockServer.stubFor(post(urlEqualTo("/users/search"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                        .withBodyFile("user_search_response_with_two_users.json")));
+        client.getListOfUsersByIds(Lists.newArrayList(1L, 2L));
+
+        wireMockServer.resetAll();
+        wireMockServer.stubFor(post(urlEqualTo("/users/search"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                        .withBodyFile("user_search_response_with_three_users.json")));
+
+        List<UserDto> result = client.getListOfUsersByIds(userIds);
+
+        verifyPostOnSearchWithRequestDto(new UserSearchDto(Lists.newArrayList(3L)));
+        wireMockServer.verify(1, postRequestedFor(urlEqualTo("/users/search")));
+        assertEquals(userIds, result.stream().map(UserDto::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void areUserIdsValid_ServiceKeepsFailing_ShouldOpenCircuitAndFailFastWithoutCallingService() {
+        wireMockServer.stubFor(post(urlEqualTo("/users/search"))
+                .willReturn(status(500)));
+
+        for (int i = 0; i < 5; i++) {
+            assertThrows(UserServiceException.class, () -> client.getListOfUsersByIds(userIds));
+        }
+        UserServiceUnavailableException exception = assertThrows(UserServiceUnavailableException.class,
+                () -> client.areUserIdsValid(userIds));
+
+        wireMockServer.verify(5, postRequestedFor(urlEqualTo("/users/search")));
+        assertEquals("UserService is unavailable", exception.getMessage());
+    }
+
+    @Test
+    void getUsersOrLastKnownAsync_ServiceFails_ShouldCompleteWithLastKnownUsersFlaggedAsStale() throws Exception {
+        wireMockServer.stubFor(post(urlEqualTo("/users/search"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                        .withBodyFile("user_search_response_with_three_users.json")));
+        client.getListOfUsersByIds(userIds);
+        wireMockServer.stubFor(post(urlEqualTo("/users/search"))
+                .willReturn(status(500)));
+
+        UserLookupResult result = client.getUsersOrLastKnownAsync(Lists.newArrayList(1L, 2L, 3L, 4L))
+                .get(5, TimeUnit.SECONDS);
+
+        assertTrue(result.isStale());
+        assertEquals(userIds, result.getUsers().stream().map(UserDto::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void getUsersOrLastKnownAsync_ServiceWorks_ShouldCompleteWithFreshUsers() throws Exception {
+        wireMockServer.stubFor(post(urlEqualTo("/users/search"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                        .withBodyFile("user_search_response_with_three_users.json")));
+
+        UserLookupResult result = client.getUsersOrLastKnownAsync(userIds).get(5, TimeUnit.SECONDS);
+
+        assertFalse(result.isStale());
+        assertEquals(3, result.getUsers().size());
+    }
+
     private void verifyPostOnSearchWithRequestDto(UserSearchDto dto) throws Exception {
         wireMockServer.verify((postRequestedFor(urlEqualTo("/users/search"))
                 .withHeader(CONTENT_TYPE, equalTo(MediaType.APPLICATION_JSON_VALUE))
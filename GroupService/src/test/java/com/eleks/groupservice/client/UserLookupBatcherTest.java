@@ -0,0 +1,171 @@
+package com.eleks.groupservice.client;
+
+import com.eleks.groupservice.dto.UserDto;
+import com.eleks.groupservice.exception.UserServiceException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserLookupBatcherTest {
+
+    private MeterRegistry meterRegistry;
+    private List<List<Long>> requests;
+    private List<String> tokens;
+    private CountDownLatch responseLatch;
+    private UserLookupBatcher batcher;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        requests = new CopyOnWriteArrayList<>();
+        tokens = new CopyOnWriteArrayList<>();
+        responseLatch = new CountDownLatch(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        batcher.shutdown();
+    }
+
+    @Test
+    void lookup_ConcurrentLookupsWithinWindow_SendOneRequestForUnionOfIds() {
+        batcher = new UserLookupBatcher(200, 100, 2, this::fetch, meterRegistry);
+
+        CompletableFuture<Map<Long, UserDto>> first = batcher.lookup(Arrays.asList(1L, 2L), "token");
+        CompletableFuture<Map<Long, UserDto>> second = batcher.lookup(Arrays.asList(3L, 4L), "token");
+
+        assertEquals(Arrays.asList(1L, 2L), new ArrayList<>(first.join().keySet()));
+        assertEquals(Arrays.asList(3L, 4L), new ArrayList<>(second.join().keySet()));
+        assertEquals(Collections.singletonList(Arrays.asList(1L, 2L, 3L, 4L)), requests);
+        assertEquals(Collections.singletonList("token"), tokens);
+    }
+
+    @Test
+    void lookup_ConcurrentLookupsWithDifferentTokens_SendEachBatchWithItsCallersToken() {
+        batcher = new UserLookupBatcher(200, 100, 2, this::fetch, meterRegistry);
+
+        CompletableFuture<Map<Long, UserDto>> first = batcher.lookup(Arrays.asList(1L, 2L), "first");
+        CompletableFuture<Map<Long, UserDto>> second = batcher.lookup(Arrays.asList(2L, 3L), "second");
+
+        assertEquals(Arrays.asList(1L, 2L), new ArrayList<>(first.join().keySet()));
+        assertEquals(Arrays.asList(2L, 3L), new ArrayList<>(second.join().keySet()));
+        assertEquals(2, requests.size());
+        assertTrue(requests.contains(Arrays.asList(1L, 2L)));
+        assertTrue(requests.contains(Arrays.asList(2L, 3L)));
+        assertEquals(2, tokens.size());
+        assertTrue(tokens.containsAll(Arrays.asList("first", "second")));
+        assertEquals(0.0, meterRegistry.counter("userservice.batch.coalesced").count());
+    }
+
+    @Test
+    void lookup_OneCallerHasBadToken_OtherCallersSucceed() {
+        batcher = new UserLookupBatcher(200, 100, 2, (ids, jwt) -> {
+            if ("bad".equals(jwt)) {
+                throw new HttpClientErrorException(HttpStatus.UNAUTHORIZED);
+            }
+            return fetch(ids, jwt);
+        }, meterRegistry);
+
+        CompletableFuture<Map<Long, UserDto>> rejected = batcher.lookup(Arrays.asList(1L, 2L), "bad");
+        CompletableFuture<Map<Long, UserDto>> first = batcher.lookup(Arrays.asList(1L, 3L), "first");
+        CompletableFuture<Map<Long, UserDto>> second = batcher.lookup(Collections.singletonList(2L), "second");
+
+        CompletionException exception = assertThrows(CompletionException.class, rejected::join);
+        assertTrue(exception.getCause() instanceof HttpClientErrorException);
+        assertEquals(Arrays.asList(1L, 3L), new ArrayList<>(first.join().keySet()));
+        assertEquals(Collections.singletonList(2L), new ArrayList<>(second.join().keySet()));
+    }
+
+    @Test
+    void lookup_IdIsAlreadyInFlight_ShareLookup() throws Exception {
+        responseLatch = new CountDownLatch(1);
+        batcher = new UserLookupBatcher(0, 100, 2, this::fetch, meterRegistry);
+
+        CompletableFuture<Map<Long, UserDto>> first = batcher.lookup(Arrays.asList(1L, 2L), "token");
+        waitForRequests(1);
+        CompletableFuture<Map<Long, UserDto>> second = batcher.lookup(Arrays.asList(2L, 3L), "token");
+        responseLatch.countDown();
+
+        assertEquals(2, first.join().size());
+        assertSame(first.join().get(2L), second.join().get(2L));
+        waitForRequests(2);
+        assertEquals(Arrays.asList(Arrays.asList(1L, 2L), Collections.singletonList(3L)), requests);
+        assertEquals(1.0, meterRegistry.counter("userservice.batch.coalesced").count());
+    }
+
+    @Test
+    void lookup_MaxBatchSizeReached_SendBatchWithoutWaitingForWindow() {
+        batcher = new UserLookupBatcher(60_000, 2, 2, this::fetch, meterRegistry);
+
+        Map<Long, UserDto> users = batcher.lookup(Arrays.asList(1L, 2L), "token").join();
+
+        assertEquals(2, users.size());
+        assertEquals(Collections.singletonList(Arrays.asList(1L, 2L)), requests);
+    }
+
+    @Test
+    void lookup_UserIsUnknown_LeaveItOut() {
+        batcher = new UserLookupBatcher(0, 100, 2, this::fetch, meterRegistry);
+
+        Map<Long, UserDto> users = batcher.lookup(Arrays.asList(1L, -1L), "token").join();
+
+        assertEquals(Collections.singleton(1L), users.keySet());
+    }
+
+    @Test
+    void lookup_RequestFails_CompleteEveryCallerExceptionally() {
+        batcher = new UserLookupBatcher(200, 100, 2, (ids, jwt) -> {
+            throw new UserServiceException("Server error during request to UserService");
+        }, meterRegistry);
+
+        CompletableFuture<Map<Long, UserDto>> first = batcher.lookup(Collections.singletonList(1L), "token");
+        CompletableFuture<Map<Long, UserDto>> second = batcher.lookup(Collections.singletonList(2L), "token");
+
+        CompletionException exception = assertThrows(CompletionException.class, first::join);
+        assertTrue(exception.getCause() instanceof UserServiceException);
+        assertThrows(CompletionException.class, second::join);
+    }
+
+    private List<UserDto> fetch(List<Long> ids, String jwt) {
+        requests.add(ids);
+        tokens.add(jwt);
+        try {
+            responseLatch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return ids.stream()
+                .filter(id -> id > 0)
+                .map(id -> UserDto.builder().id(id).username("user" + id).build())
+                .collect(Collectors.toList());
+    }
+
+    private void waitForRequests(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (requests.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(count, requests.size());
+    }
+}
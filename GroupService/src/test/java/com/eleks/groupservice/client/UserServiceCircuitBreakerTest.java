@@ -0,0 +1,92 @@
+package com.eleks.groupservice.client;
+
+import com.eleks.groupservice.client.UserServiceCircuitBreaker.State;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserServiceCircuitBreakerTest {
+
+    private MeterRegistry meterRegistry;
+    private AtomicLong nanoTime;
+    private UserServiceCircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        nanoTime = new AtomicLong();
+        breaker = new UserServiceCircuitBreaker(3, 1000, 1, meterRegistry, nanoTime::get);
+    }
+
+    @Test
+    void onFailure_ConsecutiveFailuresReachThreshold_OpenAndRejectCalls() {
+        failCalls(3);
+
+        assertEquals(State.OPEN, breaker.getState());
+        assertFalse(breaker.isCallPermitted());
+        assertFalse(breaker.tryAcquirePermission());
+        assertEquals(1.0, meterRegistry.get("userservice.breaker.state").tag("state", "open").gauge().value());
+        assertEquals(2.0, meterRegistry.counter("userservice.breaker.calls", "outcome", "rejected").count());
+    }
+
+    @Test
+    void onSuccess_BetweenFailures_ResetFailureCount() {
+        failCalls(2);
+        breaker.tryAcquirePermission();
+        breaker.onSuccess();
+        failCalls(2);
+
+        assertEquals(State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void tryAcquirePermission_OpenIntervalPassed_LetOneProbeThrough() {
+        failCalls(3);
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+
+        assertTrue(breaker.isCallPermitted());
+        assertTrue(breaker.tryAcquirePermission());
+        assertEquals(State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void onSuccess_ProbeSucceeds_Close() {
+        failCalls(3);
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+        breaker.tryAcquirePermission();
+
+        breaker.onSuccess();
+
+        assertEquals(State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void onFailure_ProbeFails_ReopenForAnotherInterval() {
+        failCalls(3);
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+        breaker.tryAcquirePermission();
+
+        breaker.onFailure();
+
+        assertEquals(State.OPEN, breaker.getState());
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        assertFalse(breaker.isCallPermitted());
+    }
+
+    private void failCalls(int count) {
+        for (int i = 0; i < count; i++) {
+            assertTrue(breaker.tryAcquirePermission());
+            breaker.onFailure();
+        }
+    }
+}
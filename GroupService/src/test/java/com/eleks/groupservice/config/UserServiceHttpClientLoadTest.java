@@ -0,0 +1,106 @@
+package com.eleks.groupservice.config;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the throughput of the pooled client with the default {@link SimpleClientHttpRequestFactory}.
+ * Run with {@code ./gradlew :GroupService:loadTest}.
+ */
+@Tag("load")
+class UserServiceHttpClientLoadTest {
+
+    private static final int THREADS = 32;
+    private static final int REQUESTS_PER_THREAD = 500;
+    private static final int WARM_UP_REQUESTS = 200;
+
+    private static WireMockServer wireMockServer = new WireMockServer(options().dynamicPort().containerThreads(64));
+
+    @BeforeAll
+    static void setUpAll() {
+        wireMockServer.start();
+        wireMockServer.stubFor(post(urlEqualTo("/users/search"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                        .withFixedDelay(2)
+                        .withBodyFile("user_search_response_with_three_users.json")));
+    }
+
+    @AfterAll
+    static void cleanUpAll() {
+        wireMockServer.stop();
+    }
+
+    @Test
+    void pooledClient_ComparedWithSimpleFactory() throws Exception {
+        String baseUrl = wireMockServer.baseUrl();
+        UserServiceHttpClientConfig config = new UserServiceHttpClientConfig();
+        PoolingHttpClientConnectionManager connectionManager = config.userServiceConnectionManager(
+                baseUrl, 200, 20, THREADS, 30_000, new SimpleMeterRegistry());
+
+        try (CloseableHttpClient httpClient = config.userServiceHttpClient(connectionManager, 1000, 3000, 500, 30_000)) {
+            double simple = requestsPerSecond(new RestTemplate(new SimpleClientHttpRequestFactory()), baseUrl);
+            double pooled = requestsPerSecond(config.restTemplate(httpClient), baseUrl);
+
+            System.out.printf("SimpleClientHttpRequestFactory: %.0f requests/s%n", simple);
+            System.out.printf("Pooled HttpComponents client:   %.0f requests/s%n", pooled);
+        }
+    }
+
+    private static double requestsPerSecond(RestTemplate restTemplate, String baseUrl) throws Exception {
+        String url = baseUrl + "/users/search";
+        for (int i = 0; i < WARM_UP_REQUESTS; i++) {
+            restTemplate.postForObject(url, "{\"userIds\":[1,2,3]}", String.class);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Callable<Integer>> tasks = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                tasks.add(() -> {
+                    int succeeded = 0;
+                    for (int j = 0; j < REQUESTS_PER_THREAD; j++) {
+                        if (restTemplate.postForObject(url, "{\"userIds\":[1,2,3]}", String.class) != null) {
+                            succeeded++;
+                        }
+                    }
+                    return succeeded;
+                });
+            }
+
+            long start = System.nanoTime();
+            int succeeded = 0;
+            for (Future<Integer> result : executor.invokeAll(tasks)) {
+                succeeded += result.get();
+            }
+            long elapsed = System.nanoTime() - start;
+
+            assertEquals(THREADS * REQUESTS_PER_THREAD, succeeded);
+            return succeeded * 1e9 / elapsed;
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -2,11 +2,19 @@ package com.eleks.groupservice.controller;
 
 import com.eleks.common.dto.ErrorDto;
 import com.eleks.groupservice.domain.Currency;
+import com.eleks.groupservice.dto.DebtDto;
+import com.eleks.groupservice.dto.GroupBalancesResponseDto;
 import com.eleks.groupservice.dto.GroupRequestDto;
 import com.eleks.groupservice.dto.GroupResponseDto;
+import com.eleks.groupservice.dto.MemberDto;
+import com.eleks.groupservice.dto.SettlementResponseDto;
 import com.eleks.groupservice.dto.StatusResponseDto;
+import com.eleks.groupservice.dto.TransferDto;
+import com.eleks.groupservice.dto.UserGroupBalanceDto;
+import com.eleks.groupservice.exception.GroupVersionMismatchException;
 import com.eleks.groupservice.exception.ResourceNotFoundException;
 import com.eleks.groupservice.exception.UserServiceException;
+import com.eleks.groupservice.exception.UserServiceUnavailableException;
 import com.eleks.groupservice.exception.UsersIdsValidationException;
 import com.eleks.groupservice.handler.CustomExceptionHandler;
 import com.eleks.groupservice.service.GroupService;
@@ -18,10 +26,12 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -32,6 +42,7 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.setup.MockMvcBuilders.standaloneSetup;
 
@@ -155,6 +166,17 @@ class GroupControllerTest {
                 error.getMessage());
     }
 
+    @Test
+    public void saveGroup_UserServiceUnavailable_ShouldReturnServiceUnavailableAndErrorWithMsgFromException() throws Exception {
+        Exception error = new UserServiceUnavailableException("msg");
+
+        when(groupService.saveGroup(any(GroupRequestDto.class))).thenThrow(error);
+
+        postGroupAndExpectStatusAndErrorWithMessage(objectMapper.writeValueAsString(requestDto),
+                503,
+                error.getMessage());
+    }
+
     private void postGroupAndExpectStatusAndErrorWithMessage(String content, int expectedStatus, String expectedMsg) throws Exception {
         String errorJson = mockMvc.perform(post("/groups")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -201,7 +223,7 @@ class GroupControllerTest {
 
     @Test
     public void editGroup_GroupExists_ReturnOkAndUpdatedData() throws Exception {
-        when(groupService.editGroup(anyLong(), any(GroupRequestDto.class))).thenReturn(responseDto);
+        when(groupService.editGroup(anyLong(), any(), any(GroupRequestDto.class))).thenReturn(responseDto);
 
         mockMvc.perform(put("/groups/" + responseDto.getId())
                 .contentType(MediaType.APPLICATION_JSON)
@@ -211,11 +233,54 @@ class GroupControllerTest {
                 .andExpect(content().json(objectMapper.writeValueAsString(responseDto)));
     }
 
+    @Test
+    public void editGroup_IfMatchHeader_PassVersionAndReturnETag() throws Exception {
+        responseDto.setVersion(4L);
+        when(groupService.editGroup(eq(responseDto.getId()), eq(3L), any(GroupRequestDto.class))).thenReturn(responseDto);
+
+        mockMvc.perform(put("/groups/" + responseDto.getId())
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requestDto)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+    }
+
+    @Test
+    public void editGroup_VersionMismatch_ReturnPreconditionFailedAndError() throws Exception {
+        GroupVersionMismatchException ex = new GroupVersionMismatchException("msg");
+
+        when(groupService.editGroup(anyLong(), any(), any(GroupRequestDto.class))).thenThrow(ex);
+
+        String responseBody = mockMvc.perform(put("/groups/1")
+                .header(HttpHeaders.IF_MATCH, "W/\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requestDto)))
+                .andExpect(status().isPreconditionFailed())
+                .andReturn().getResponse().getContentAsString();
+
+        ErrorDto error = objectMapper.readValue(responseBody, ErrorDto.class);
+
+        assertEquals(HttpStatus.PRECONDITION_FAILED.value(), error.getStatusCode());
+        assertEquals(ex.getMessage(), error.getMessages().get(0));
+    }
+
+    @Test
+    public void editGroup_MalformedIfMatch_ReturnPreconditionFailed() throws Exception {
+        mockMvc.perform(put("/groups/1")
+                .header(HttpHeaders.IF_MATCH, "\"abc\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requestDto)))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(groupService, never()).editGroup(anyLong(), any(), any(GroupRequestDto.class));
+    }
+
     @Test
     public void editGroup_GroupDoesntExist_ReturnNotFoundAndError() throws Exception {
         ResourceNotFoundException ex = new ResourceNotFoundException("msg");
 
-        when(groupService.editGroup(anyLong(), any(GroupRequestDto.class))).thenThrow(ex);
+        when(groupService.editGroup(anyLong(), any(), any(GroupRequestDto.class))).thenThrow(ex);
 
         String responseBody = mockMvc.perform(put("/groups/1")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -282,7 +347,7 @@ class GroupControllerTest {
     public void editGroup_GroupMembersIdsAreInvalid_ShouldReturnBadRequestAndErrorWithMsgFromException() throws Exception {
         Exception error = new UsersIdsValidationException("msg");
 
-        when(groupService.editGroup(anyLong(), any(GroupRequestDto.class))).thenThrow(error);
+        when(groupService.editGroup(anyLong(), any(), any(GroupRequestDto.class))).thenThrow(error);
 
         putGroupAndExpectStatusAndErrorWithMessage(objectMapper.writeValueAsString(requestDto),
                 400,
@@ -293,7 +358,7 @@ class GroupControllerTest {
     public void editGroup_UserServiceError_ShouldReturnServerErrorAndErrorWithMsgFromException() throws Exception {
         Exception error = new UserServiceException("msg");
 
-        when(groupService.editGroup(anyLong(), any(GroupRequestDto.class))).thenThrow(error);
+        when(groupService.editGroup(anyLong(), any(), any(GroupRequestDto.class))).thenThrow(error);
 
         putGroupAndExpectStatusAndErrorWithMessage(objectMapper.writeValueAsString(requestDto),
                 500,
@@ -353,13 +418,13 @@ class GroupControllerTest {
                         .userId(1L)
                         .username("username1")
                         .currency(Currency.UAH)
-                        .value(10D)
+                        .value(new BigDecimal("10.00"))
                         .build(),
                 StatusResponseDto.builder()
                         .userId(2L)
                         .username("username2")
                         .currency(Currency.UAH)
-                        .value(20D)
+                        .value(new BigDecimal("20.00"), false)
                         .build()
         );
         Long groupId = 1L;
@@ -421,4 +486,100 @@ class GroupControllerTest {
         assertNotNull(error.getTimestamp());
     }
 
-}
\ No newline at end of file
+
+    @Test
+    public void getSettlement_GroupExists_ReturnOkAndTransfers() throws Exception {
+        Long groupId = 1L;
+        SettlementResponseDto settlement = SettlementResponseDto.builder()
+                .groupId(groupId)
+                .currency(Currency.UAH)
+                .transfers(Arrays.asList(new TransferDto(2L, 1L, new BigDecimal("20.00"), false), new TransferDto(3L, 1L, new BigDecimal("30.00"))))
+                .build();
+
+        when(groupService.getSettlement(groupId)).thenReturn(settlement);
+
+        mockMvc.perform(get("/groups/" + groupId + "/settlement"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().json(objectMapper.writeValueAsString(settlement)));
+    }
+
+    @Test
+    public void getSettlement_GroupDoesntExist_ReturnNotFoundAndError() throws Exception {
+        Long groupId = 1L;
+        ResourceNotFoundException ex = new ResourceNotFoundException("msg");
+
+        when(groupService.getSettlement(groupId)).thenThrow(ex);
+
+        String errorJson = mockMvc.perform(get("/groups/" + groupId + "/settlement"))
+                .andExpect(status().isNotFound())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsString();
+
+        ErrorDto error = objectMapper.readValue(errorJson, ErrorDto.class);
+        assertEquals(HttpStatus.NOT_FOUND.value(), error.getStatusCode());
+        assertEquals(ex.getMessage(), error.getMessages().get(0));
+    }
+
+    @Test
+    public void getGroupBalances_GroupExists_ReturnOkAndBalances() throws Exception {
+        Long groupId = 1L;
+        GroupBalancesResponseDto balances = GroupBalancesResponseDto.builder()
+                .groupId(groupId)
+                .currency(Currency.UAH)
+                .members(Arrays.asList(new MemberDto(1L, "username1"), new MemberDto(2L, "username2")))
+                .debts(Arrays.asList(new DebtDto(2L, 1L, new BigDecimal("20.00"), false)))
+                .build();
+
+        when(groupService.getGroupBalances(groupId)).thenReturn(balances);
+
+        mockMvc.perform(get("/groups/" + groupId + "/balances"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().json(objectMapper.writeValueAsString(balances)));
+    }
+
+    @Test
+    public void getGroupBalances_GroupDoesntExist_ReturnNotFoundAndError() throws Exception {
+        Long groupId = 1L;
+        ResourceNotFoundException ex = new ResourceNotFoundException("msg");
+
+        when(groupService.getGroupBalances(groupId)).thenThrow(ex);
+
+        String errorJson = mockMvc.perform(get("/groups/" + groupId + "/balances"))
+                .andExpect(status().isNotFound())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsString();
+
+        ErrorDto error = objectMapper.readValue(errorJson, ErrorDto.class);
+        assertEquals(HttpStatus.NOT_FOUND.value(), error.getStatusCode());
+        assertEquals(ex.getMessage(), error.getMessages().get(0));
+    }
+
+    @Test
+    public void getUserBalances_UserHasGroups_ReturnOkAndBalancesOfEveryGroup() throws Exception {
+        Long userId = 1L;
+        List<UserGroupBalanceDto> balances = Arrays.asList(
+                UserGroupBalanceDto.builder()
+                        .groupId(1L)
+                        .groupName("first")
+                        .currency(Currency.UAH)
+                        .total(new BigDecimal("20.00"), false)
+                        .members(Arrays.asList(new StatusResponseDto(2L, "username2", Currency.UAH, new BigDecimal("20.00"), false)))
+                        .build(),
+                UserGroupBalanceDto.builder()
+                        .groupId(2L)
+                        .groupName("second")
+                        .currency(Currency.USD)
+                        .total(new BigDecimal("-2.50"))
+                        .members(Arrays.asList(new StatusResponseDto(3L, "username3", Currency.USD, new BigDecimal("-2.50"), false)))
+                        .build());
+
+        when(groupService.getUserBalances(userId)).thenReturn(balances);
+
+        mockMvc.perform(get("/users/" + userId + "/balances"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().json(objectMapper.writeValueAsString(balances)));
+    }
+}
@@ -3,8 +3,13 @@ package com.eleks.groupservice.controller;
 import com.eleks.common.dto.ErrorDto;
 import com.eleks.common.security.SecurityPrincipalHolder;
 import com.eleks.common.security.model.LoggedPrincipal;
+import com.eleks.groupservice.dto.PaymentBatchItemResultDto;
+import com.eleks.groupservice.dto.PaymentBatchResponseDto;
 import com.eleks.groupservice.dto.PaymentRequestDto;
 import com.eleks.groupservice.dto.PaymentResponseDto;
+import com.eleks.groupservice.dto.PaymentsPageResponseDto;
+import com.eleks.groupservice.exception.InvalidBatchRequestException;
+import com.eleks.groupservice.exception.InvalidPageRequestException;
 import com.eleks.groupservice.exception.ResourceNotFoundException;
 import com.eleks.groupservice.exception.UsersIdsValidationException;
 import com.eleks.groupservice.handler.CustomExceptionHandler;
@@ -21,11 +26,13 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -67,7 +74,7 @@ class PaymentControllerTest {
 
         requestDto = PaymentRequestDto.builder()
                 .paymentDescription("paymentDescription")
-                .price(200.50)
+                .price(new BigDecimal("200.50"))
                 .coPayers(Lists.newArrayList(1L, 2L, 3L))
                 .build();
 
@@ -96,6 +103,42 @@ class PaymentControllerTest {
                 .andExpect(content().json(objectMapper.writeValueAsString(responseDto)));
     }
 
+    @Test
+    public void createPayments_BatchIsPosted_ReturnOkAndPerItemResults() throws Exception {
+        PaymentBatchResponseDto batchResponse = PaymentBatchResponseDto.builder()
+                .created(1)
+                .rejected(1)
+                .results(Arrays.asList(
+                        PaymentBatchItemResultDto.builder().index(0).created(true).payment(responseDto).build(),
+                        PaymentBatchItemResultDto.builder().index(1).created(false)
+                                .errors(Collections.singletonList("price is required")).build()))
+                .build();
+        when(principalHolder.getPrincipal()).thenReturn(principal);
+        when(service.createPayments(eq(1L), eq(1L), anyList())).thenReturn(batchResponse);
+
+        mockMvc.perform(post("/groups/1/payments:batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Arrays.asList(requestDto, requestDto))))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().json(objectMapper.writeValueAsString(batchResponse)));
+    }
+
+    @Test
+    public void createPayments_BatchIsTooBig_ReturnBadRequestAndError() throws Exception {
+        when(principalHolder.getPrincipal()).thenReturn(principal);
+        when(service.createPayments(eq(1L), eq(1L), anyList())).thenThrow(new InvalidBatchRequestException("msg"));
+
+        String responseBody = mockMvc.perform(post("/groups/1/payments:batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Collections.singletonList(requestDto))))
+                .andExpect(status().isBadRequest())
+                .andReturn().getResponse().getContentAsString();
+
+        ErrorDto error = objectMapper.readValue(responseBody, ErrorDto.class);
+        assertEquals("msg", error.getMessages().get(0));
+    }
+
     @Test
     public void createPayment_PaymentWithoutDescription_ShouldReturnBadRequestAndError() throws Exception {
         requestDto.setPaymentDescription(null);
@@ -134,7 +177,7 @@ class PaymentControllerTest {
 
     @Test
     public void createPayment_PaymentWithNegativePrice_ShouldReturnBadRequestAndError() throws Exception {
-        requestDto.setPrice(-10D);
+        requestDto.setPrice(new BigDecimal("-10"));
 
         postPaymentAndExpectStatusAndErrorWithMessage(objectMapper.writeValueAsString(requestDto),
                 400,
@@ -143,13 +186,22 @@ class PaymentControllerTest {
 
     @Test
     public void createPayment_PaymentWithZeroPrice_ShouldReturnBadRequestAndError() throws Exception {
-        requestDto.setPrice(0D);
+        requestDto.setPrice(BigDecimal.ZERO);
 
         postPaymentAndExpectStatusAndErrorWithMessage(objectMapper.writeValueAsString(requestDto),
                 400,
                 "price can't be negative or zero");
     }
 
+    @Test
+    public void createPayment_PaymentWithTooPrecisePrice_ShouldReturnBadRequestAndError() throws Exception {
+        requestDto.setPrice(new BigDecimal("10.005"));
+
+        postPaymentAndExpectStatusAndErrorWithMessage(objectMapper.writeValueAsString(requestDto),
+                400,
+                "price can't have more than 2 decimal places");
+    }
+
     @Test
     public void createPayment_PaymentWithoutCoPayers_ShouldReturnBadRequestAndError() throws Exception {
         requestDto.setCoPayers(null);
@@ -294,4 +346,90 @@ class PaymentControllerTest {
         assertNotNull(error.getTimestamp());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void getPaymentsPage_LimitAndCursorAreSet_ReturnOkAndPageWithNextCursor() throws Exception {
+        PaymentsPageResponseDto page = new PaymentsPageResponseDto(Collections.singletonList(responseDto), "nextCursor");
+
+        when(service.getPaymentsPage(1L, "cursor", 1)).thenReturn(Optional.of(page));
+
+        mockMvc.perform(get("/groups/1/payments")
+                .param("limit", "1")
+                .param("after", "cursor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().json(objectMapper.writeValueAsString(page)));
+    }
+
+    @Test
+    public void getPaymentsPage_CursorIsNotValid_ReturnBadRequest() throws Exception {
+        when(service.getPaymentsPage(1L, "broken", 10)).thenThrow(new InvalidPageRequestException("Cursor is not valid"));
+
+        String responseBody = mockMvc.perform(get("/groups/1/payments")
+                .param("limit", "10")
+                .param("after", "broken"))
+                .andExpect(status().isBadRequest())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        ErrorDto error = objectMapper.readValue(responseBody, ErrorDto.class);
+        assertEquals(HttpStatus.BAD_REQUEST.value(), error.getStatusCode());
+        assertEquals("Cursor is not valid", error.getMessages().get(0));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void streamPayments_AcceptNdjson_ReturnOneJsonLinePerPayment() throws Exception {
+        PaymentResponseDto second = PaymentResponseDto.builder()
+                .id(2L)
+                .paymentDescription("second")
+                .price(new BigDecimal("10.00"))
+                .coPayers(Lists.newArrayList(1L, 2L))
+                .creatorId(2L)
+                .groupId(1L)
+                .timestamp(Instant.now())
+                .build();
+
+        doAnswer(invocation -> {
+            Consumer<PaymentResponseDto> consumer = invocation.getArgument(1);
+            consumer.accept(responseDto);
+            consumer.accept(second);
+            return null;
+        }).when(service).streamPayments(eq(1L), any(Consumer.class));
+
+        mockMvc.perform(get("/groups/1/payments").accept(PaymentController.APPLICATION_NDJSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(PaymentController.APPLICATION_NDJSON_VALUE))
+                .andExpect(content().string(objectMapper.writeValueAsString(responseDto) + "\n"
+                        + objectMapper.writeValueAsString(second) + "\n"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void streamPayments_GroupHasNoPayments_ReturnEmptyNdjson() throws Exception {
+        mockMvc.perform(get("/groups/1/payments").accept(PaymentController.APPLICATION_NDJSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(PaymentController.APPLICATION_NDJSON_VALUE))
+                .andExpect(content().string(""));
+
+        verify(service).streamPayments(eq(1L), any(Consumer.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void streamPayments_GroupDoesntExist_ReturnNotFoundAndJsonError() throws Exception {
+        doThrow(new ResourceNotFoundException("group does't exist"))
+                .when(service).streamPayments(eq(1L), any(Consumer.class));
+
+        String responseBody = mockMvc.perform(get("/groups/1/payments")
+                .accept(MediaType.parseMediaType(PaymentController.APPLICATION_NDJSON_VALUE), MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andReturn()
+                .getResponse().getContentAsString();
+
+        ErrorDto error = objectMapper.readValue(responseBody, ErrorDto.class);
+        assertEquals(HttpStatus.NOT_FOUND.value(), error.getStatusCode());
+        assertEquals("group does't exist", error.getMessages().get(0));
+    }
+}
@@ -0,0 +1,75 @@
+package com.eleks.groupservice.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongIdSetTest {
+
+    @Test
+    public void of_UnsortedIdsWithDuplicates_ReturnSortedDistinctIds() {
+        LongIdSet set = LongIdSet.of(5L, 1L, 3L, 1L, 5L);
+
+        assertArrayEquals(new long[]{1L, 3L, 5L}, set.toLongArray());
+    }
+
+    @Test
+    public void copyOf_EmptyCollection_ReturnEmptySet() {
+        assertSame(LongIdSet.empty(), LongIdSet.copyOf(new HashSet<>()));
+    }
+
+    @Test
+    public void contains_IdInSet_ReturnTrue() {
+        LongIdSet set = LongIdSet.of(1L, 3L, 5L);
+
+        assertTrue(set.contains(3L));
+        assertTrue(set.contains((Object) 5L));
+        assertFalse(set.contains(4L));
+        assertFalse(set.contains((Object) 5));
+    }
+
+    @Test
+    public void indexOf_IdInSet_ReturnPositionInAscendingOrder() {
+        LongIdSet set = LongIdSet.of(7L, 3L, 5L);
+
+        assertEquals(0, set.indexOf(3L));
+        assertEquals(2, set.indexOf(7L));
+        assertEquals(-1, set.indexOf(4L));
+    }
+
+    @Test
+    public void containsAll_SubsetAndNotSubset_ReturnWhetherAllIdsArePresent() {
+        LongIdSet set = LongIdSet.of(1L, 2L, 3L, 4L);
+
+        assertTrue(set.containsAll(LongIdSet.of(2L, 4L)));
+        assertFalse(set.containsAll(LongIdSet.of(2L, 5L)));
+        assertTrue(set.containsAll(Arrays.asList(1L, 3L)));
+        assertFalse(set.containsAll(Arrays.asList(1L, 42L)));
+    }
+
+    @Test
+    public void setOperations_TwoOverlappingSets_ReturnMergedResults() {
+        LongIdSet first = LongIdSet.of(1L, 2L, 3L, 4L);
+        LongIdSet second = LongIdSet.of(3L, 4L, 5L);
+
+        assertEquals(LongIdSet.of(1L, 2L, 3L, 4L, 5L), first.union(second));
+        assertEquals(LongIdSet.of(3L, 4L), first.intersect(second));
+        assertEquals(LongIdSet.of(1L, 2L), first.difference(second));
+        assertEquals(LongIdSet.of(1L, 3L, 4L), first.without(2L));
+        assertSame(first, first.without(42L));
+    }
+
+    @Test
+    public void equals_SameIdsInOtherSet_ReturnTrueAndSameHashCode() {
+        LongIdSet set = LongIdSet.of(1L, 2L, 3L);
+        HashSet<Long> other = new HashSet<>(Arrays.asList(3L, 2L, 1L));
+
+        assertEquals(other, set);
+        assertEquals(set, other);
+        assertEquals(other.hashCode(), set.hashCode());
+        assertEquals(Arrays.asList(1L, 2L, 3L), set.toList());
+    }
+}
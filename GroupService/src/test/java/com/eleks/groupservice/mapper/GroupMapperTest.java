@@ -2,6 +2,7 @@ package com.eleks.groupservice.mapper;
 
 import com.eleks.groupservice.domain.Currency;
 import com.eleks.groupservice.domain.Group;
+import com.eleks.groupservice.domain.LongIdSet;
 import com.eleks.groupservice.dto.GroupRequestDto;
 import com.eleks.groupservice.dto.GroupResponseDto;
 import org.junit.jupiter.api.Test;
@@ -26,7 +27,7 @@ class GroupMapperTest {
         assertNull(entity.getId());
         assertEquals(dto.getGroupName(), entity.getGroupName());
         assertEquals(dto.getCurrency(), entity.getCurrency());
-        assertEquals(dto.getMembers(), entity.getMembers());
+        assertEquals(LongIdSet.copyOf(dto.getMembers()), entity.getMembers());
     }
 
     @Test
@@ -40,7 +41,7 @@ class GroupMapperTest {
                 .id(1L)
                 .groupName("groupName")
                 .currency(Currency.UAH)
-                .members(Arrays.asList(1L, 2L, 3L))
+                .members(LongIdSet.of(1L, 2L, 3L))
                 .build();
 
         GroupResponseDto dto = GroupMapper.toDto(entity);
@@ -48,7 +49,7 @@ class GroupMapperTest {
         assertEquals(entity.getId(), dto.getId());
         assertEquals(entity.getGroupName(), dto.getGroupName());
         assertEquals(entity.getCurrency(), dto.getCurrency());
-        assertEquals(entity.getMembers(), dto.getMembers());
+        assertEquals(LongIdSet.copyOf(entity.getMembers()).toList(), dto.getMembers());
     }
 
     @Test
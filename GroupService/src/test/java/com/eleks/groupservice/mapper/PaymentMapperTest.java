@@ -1,12 +1,15 @@
 package com.eleks.groupservice.mapper;
 
+import com.eleks.groupservice.domain.Currency;
 import com.eleks.groupservice.domain.Group;
+import com.eleks.groupservice.domain.LongIdSet;
 import com.eleks.groupservice.domain.Payment;
 import com.eleks.groupservice.dto.PaymentRequestDto;
 import com.eleks.groupservice.dto.PaymentResponseDto;
 import com.google.common.collect.Lists;
 import org.junit.jupiter.api.Test;
 
+import java.math.BigDecimal;
 import java.time.Instant;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -18,11 +21,12 @@ class PaymentMapperTest {
         Long creatorId = 1L;
         Group group = Group.builder()
                 .id(2L)
+                .currency(Currency.UAH)
                 .build();
         PaymentRequestDto dto = PaymentRequestDto.builder()
                 .paymentDescription("paymentDescription")
                 .coPayers(Lists.newArrayList(1L, 2L, 3L))
-                .price(100.5)
+                .price(new BigDecimal("100.50"))
                 .build();
 
         Payment entity = PaymentMapper.toEntity(creatorId, group, dto);
@@ -31,8 +35,8 @@ class PaymentMapperTest {
         assertNull(entity.getId());
         assertNull(entity.getTimestamp());
         assertEquals(dto.getPaymentDescription(), entity.getPaymentDescription());
-        assertEquals(dto.getCoPayers(), entity.getCoPayers());
-        assertEquals(dto.getPrice(), entity.getPrice());
+        assertEquals(LongIdSet.copyOf(dto.getCoPayers()), entity.getCoPayers());
+        assertEquals(10050L, entity.getPrice());
         assertEquals(group.getId(), entity.getGroup().getId());
     }
 
@@ -40,6 +44,7 @@ class PaymentMapperTest {
     public void toDto() {
         Group group = Group.builder()
                 .id(2L)
+                .currency(Currency.UAH)
                 .build();
 
         Payment entity = Payment.builder()
@@ -47,8 +52,8 @@ class PaymentMapperTest {
                 .creatorId(2L)
                 .group(group)
                 .paymentDescription("paymentDescription")
-                .price(200.5)
-                .coPayers(Lists.newArrayList(1L, 2L, 3L))
+                .price(20050L)
+                .coPayers(LongIdSet.of(1L, 2L, 3L))
                 .timestamp(Instant.now())
                 .build();
 
@@ -59,8 +64,8 @@ class PaymentMapperTest {
         assertEquals(entity.getCreatorId(), dto.getCreatorId());
         assertEquals(entity.getGroup().getId(), dto.getGroupId());
         assertEquals(entity.getPaymentDescription(), dto.getPaymentDescription());
-        assertEquals(entity.getCoPayers(), dto.getCoPayers());
-        assertEquals(entity.getPrice(), dto.getPrice());
+        assertEquals(LongIdSet.copyOf(entity.getCoPayers()).toList(), dto.getCoPayers());
+        assertEquals(new BigDecimal("200.50"), dto.getPrice());
         assertEquals(entity.getTimestamp(), dto.getTimestamp());
     }
 }
\ No newline at end of file
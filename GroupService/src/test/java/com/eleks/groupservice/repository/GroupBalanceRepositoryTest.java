@@ -0,0 +1,78 @@
+package com.eleks.groupservice.repository;
+
+import com.eleks.groupservice.domain.GroupBalance;
+import com.eleks.groupservice.domain.GroupBalanceId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs on H2 in MySQL mode, since the ledger upsert uses {@code on duplicate key update}.
+ */
+@ExtendWith(SpringExtension.class)
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:group_balance;MODE=MySQL;DB_CLOSE_DELAY=-1")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class GroupBalanceRepositoryTest {
+
+    @Autowired
+    private GroupBalanceRepository repository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    @Sql(scripts = "classpath:scripts/add_test_group_balances.sql")
+    void findAllByGroupIdAndUserA_BalancesExist_ReturnOnlyRowsOfUser() {
+        List<GroupBalance> found = repository.findAllByGroupIdAndUserA(1L, 1L);
+
+        assertEquals(2, found.size());
+        found.forEach(balance -> assertEquals(12500L, balance.getAmount()));
+    }
+
+    @Test
+    @Sql(scripts = "classpath:scripts/add_test_group_balances.sql")
+    void findAllByUserA_BalancesExist_ReturnRowsOfUserFromAllGroups() {
+        List<GroupBalance> found = repository.findAllByUserA(2L);
+
+        assertEquals(1, found.size());
+        assertEquals(-12500L, found.get(0).getAmount());
+    }
+
+    @Test
+    @Sql(scripts = "classpath:scripts/add_test_group_balances.sql")
+    void addToAmount_RowExists_ShouldAddDeltaToAmount() {
+        repository.addToAmount(1L, 1L, 2L, 2500L);
+        entityManager.clear();
+
+        GroupBalance found = entityManager.find(GroupBalance.class, new GroupBalanceId(1L, 1L, 2L));
+        assertEquals(15000L, found.getAmount());
+        assertEquals(4, repository.count());
+    }
+
+    @Test
+    void addToAmount_RowDoesntExist_ShouldInsertRowWithDelta() {
+        repository.addToAmount(1L, 1L, 2L, 2500L);
+        entityManager.clear();
+
+        GroupBalance found = entityManager.find(GroupBalance.class, new GroupBalanceId(1L, 1L, 2L));
+        assertEquals(2500L, found.getAmount());
+    }
+
+    @Test
+    @Sql(scripts = "classpath:scripts/add_test_group_balances.sql")
+    void deleteAllByGroupId_BalancesExist_ShouldDeleteAllRowsOfGroup() {
+        int deleted = repository.deleteAllByGroupId(1L);
+
+        assertEquals(4, deleted);
+        assertTrue(repository.findAll().isEmpty());
+    }
+}
@@ -2,8 +2,8 @@ package com.eleks.groupservice.repository;
 
 import com.eleks.groupservice.domain.Currency;
 import com.eleks.groupservice.domain.Group;
+import com.eleks.groupservice.domain.LongIdSet;
 import com.eleks.groupservice.domain.Payment;
-import org.assertj.core.util.Lists;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,6 +15,9 @@ import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -36,7 +39,7 @@ class GroupRepositoryTest {
         group = Group.builder()
                 .groupName("groupName")
                 .currency(Currency.EUR)
-                .members(Lists.newArrayList(33L, 44L, 55L)).build();
+                .members(LongIdSet.of(33L, 44L, 55L)).build();
     }
 
     @Test
@@ -55,6 +58,7 @@ class GroupRepositoryTest {
     @Sql(scripts = "classpath:scripts/add_test_group.sql")
     void saveUpdateGroupWithNewDataShouldReturnUpdatedGroup() {
         group.setId(1L);
+        group.setVersion(0L);
 
         Group updated = repository.save(group);
 
@@ -85,7 +89,7 @@ class GroupRepositoryTest {
         assertEquals(1, found.getId());
         assertEquals("testGroup", found.getGroupName());
         assertEquals(Currency.UAH, found.getCurrency());
-        assertEquals(Lists.newArrayList(1L, 2L), found.getMembers());
+        assertEquals(LongIdSet.of(1L, 2L), found.getMembers());
     }
 
     @Test
@@ -120,4 +124,111 @@ class GroupRepositoryTest {
         assertNull(payment1);
         assertNull(payment2);
     }
-}
\ No newline at end of file
+
+    @Test
+    @Sql(scripts = "classpath:scripts/add_test_groups_with_shared_member.sql")
+    void isMemberUserIsInGroupReturnTrue() {
+        assertTrue(repository.isMember(1L, 2L));
+        assertFalse(repository.isMember(2L, 2L));
+        assertFalse(repository.isMember(3L, 1L));
+    }
+
+    @Test
+    @Sql(scripts = "classpath:scripts/add_test_groups_with_shared_member.sql")
+    void findGroupsIdsByMemberIdUserIsInTwoGroupsReturnBothIds() {
+        assertEquals(Arrays.asList(1L, 2L), repository.findGroupsIdsByMemberId(1L));
+        assertEquals(Collections.singletonList(2L), repository.findGroupsIdsByMemberId(3L));
+        assertTrue(repository.findGroupsIdsByMemberId(4L).isEmpty());
+    }
+
+    @Test
+    @Sql(scripts = "classpath:scripts/add_test_groups_with_shared_member.sql")
+    void findAllByMemberIdUserIsInTwoGroupsReturnGroupsWithAllMembers() {
+        List<Group> found = repository.findAllByMemberId(1L);
+
+        assertEquals(2, found.size());
+        assertEquals(LongIdSet.of(1L, 2L), found.get(0).getMembers());
+        assertEquals(LongIdSet.of(1L, 3L), found.get(1).getMembers());
+    }
+
+    @Test
+    @Sql(scripts = "classpath:scripts/add_test_group.sql")
+    void deleteByIdDeleteExistingGroupShouldDeleteMembership() {
+        repository.deleteById(1L);
+        entityManager.flush();
+
+        assertTrue(repository.findGroupsIdsByMemberId(1L).isEmpty());
+    }
+
+    @Test
+    @Sql(scripts = "classpath:scripts/add_test_group_and_two_payments.sql")
+    void findWithPaymentsByIdGroupHasTwoPaymentsReturnGroupOnceWithBothPayments() {
+        Group found = repository.findWithPaymentsById(1L).get();
+
+        assertEquals(2, found.getPayments().size());
+        assertEquals(LongIdSet.of(1L, 2L), found.getMembers());
+    }
+
+    @Test
+    @Sql(scripts = "classpath:scripts/add_test_group.sql")
+    void findWithPaymentsByIdGroupWithoutPaymentsReturnGroup() {
+        Group found = repository.findWithPaymentsById(1L).get();
+
+        assertTrue(found.getPayments().isEmpty());
+    }
+
+    @Test
+    @Sql(scripts = "classpath:scripts/add_test_group_and_two_payments.sql")
+    void findAllWithPaymentsGroupHasTwoPaymentsReturnGroupOnce() {
+        List<Group> found = repository.findAllWithPayments();
+
+        assertEquals(1, found.size());
+        assertEquals(2, found.get(0).getPayments().size());
+    }
+
+    @Test
+    @Sql(scripts = "classpath:scripts/add_test_groups_with_shared_member.sql")
+    void deleteGroupByIdGroupExistsDeleteGroupAndReturnOne() {
+        assertEquals(2, repository.deleteMembersByGroupId(1L));
+        assertEquals(1, repository.deleteGroupById(1L));
+
+        assertFalse(repository.existsById(1L));
+        assertEquals(Collections.singletonList(2L), repository.findGroupsIdsByMemberId(1L));
+    }
+
+    @Test
+    void deleteGroupByIdGroupDoesntExistReturnZero() {
+        assertEquals(0, repository.deleteGroupById(1L));
+    }
+
+    @Test
+    @Sql(scripts = "classpath:scripts/add_test_group.sql")
+    void updateGroupIfVersionMatchesVersionIsCurrentUpdateGroupAndIncrementVersion() {
+        assertEquals(1, repository.updateGroupIfVersionMatches(1L, 0L, "renamed", Currency.EUR));
+
+        assertEquals(Optional.of(1L), repository.findVersionById(1L));
+        Group found = entityManager.find(Group.class, 1L);
+        assertEquals("renamed", found.getGroupName());
+        assertEquals(Currency.EUR, found.getCurrency());
+    }
+
+    @Test
+    @Sql(scripts = "classpath:scripts/add_test_group.sql")
+    void updateGroupIfVersionMatchesVersionIsStaleReturnZero() {
+        assertEquals(1, repository.updateGroup(1L, "renamed", Currency.EUR));
+
+        assertEquals(0, repository.updateGroupIfVersionMatches(1L, 0L, "lost update", Currency.USD));
+        assertEquals(Optional.of(1L), repository.findVersionById(1L));
+    }
+
+    @Test
+    @Sql(scripts = "classpath:scripts/add_test_group.sql")
+    void insertMembersAfterDeleteMembersReplaceGroupMembers() {
+        repository.deleteMembersByGroupId(1L);
+        repository.insertMembers(1L, Arrays.asList(3L, 4L));
+
+        assertTrue(repository.isMember(1L, 3L));
+        assertFalse(repository.isMember(1L, 1L));
+        assertEquals(Collections.singletonList(1L), repository.findGroupsIdsByMemberId(4L));
+    }
+}
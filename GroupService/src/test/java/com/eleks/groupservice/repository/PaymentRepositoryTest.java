@@ -2,8 +2,8 @@ package com.eleks.groupservice.repository;
 
 import com.eleks.groupservice.domain.Currency;
 import com.eleks.groupservice.domain.Group;
+import com.eleks.groupservice.domain.LongIdSet;
 import com.eleks.groupservice.domain.Payment;
-import org.assertj.core.util.Lists;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -11,11 +11,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -36,15 +43,16 @@ class PaymentRepositoryTest {
     void setUp() {
         group = Group.builder()
                 .id(1L)
+                .version(0L)
                 .groupName("testGroup")
                 .currency(Currency.UAH)
-                .members(Lists.newArrayList(1L, 2L)).build();
+                .members(LongIdSet.of(1L, 2L)).build();
 
         payment = Payment.builder()
                 .creatorId(1L)
                 .group(group)
-                .price(200D)
-                .coPayers(Lists.newArrayList(1L, 2L))
+                .price(20000L)
+                .coPayers(LongIdSet.of(1L, 2L))
                 .paymentDescription("payment description")
                 .build();
         group.getPayments().add(payment);
@@ -57,7 +65,7 @@ class PaymentRepositoryTest {
 
         assertEquals(1L, payment.getId());
         assertEquals("testing payment description", payment.getPaymentDescription());
-        assertEquals(250, payment.getPrice());
+        assertEquals(25000L, payment.getPrice());
         assertEquals(3, payment.getCoPayers().size());
         assertEquals(1L, payment.getCreatorId());
         assertEquals(1L, payment.getGroup().getId());
@@ -116,4 +124,188 @@ class PaymentRepositoryTest {
     void deleteById_DeleteNonExistingPayment_ShouldThrowEmptyResultDataAccessException() {
         assertThrows(EmptyResultDataAccessException.class, () -> repository.deleteById(1L));
     }
-}
\ No newline at end of file
+
+    @Test
+    @Sql(scripts = "classpath:scripts/add_test_group_and_two_payments.sql")
+    void findAllByGroupIdAndIdGreaterThanOrderById_PaymentsExist_ReturnOnlyNewerPayments() {
+        List<Payment> found = repository.findAllByGroupIdAndIdGreaterThanOrderById(1L, 1L);
+
+        assertEquals(1, found.size());
+        assertEquals(2L, found.get(0).getId());
+    }
+
+    @Test
+    @Sql(scripts = "classpath:scripts/add_test_group_and_two_payments.sql")
+    void findGroupsIdsWithPaymentsSinceSnapshot_NoSnapshot_ReturnGroupWithEnoughPayments() {
+        assertEquals(Collections.singletonList(1L), repository.findGroupsIdsWithPaymentsSinceSnapshot(2L, Instant.now()));
+        assertTrue(repository.findGroupsIdsWithPaymentsSinceSnapshot(3L, Instant.now()).isEmpty());
+    }
+
+    @Test
+    @Sql(scripts = {"classpath:scripts/add_test_group_and_two_payments.sql", "classpath:scripts/add_test_balance_snapshot.sql"})
+    void findGroupsIdsWithPaymentsSinceSnapshot_SnapshotExists_CountOnlyNewerPayments() {
+        assertEquals(Collections.singletonList(1L), repository.findGroupsIdsWithPaymentsSinceSnapshot(1L, Instant.now()));
+        assertTrue(repository.findGroupsIdsWithPaymentsSinceSnapshot(2L, Instant.now()).isEmpty());
+    }
+
+    @Test
+    @Sql(scripts = "classpath:scripts/add_test_group_and_two_payments.sql")
+    void findGroupsIdsWithPaymentsSinceSnapshot_PaymentsAreNotSettled_ReturnNothing() {
+        assertTrue(repository.findGroupsIdsWithPaymentsSinceSnapshot(1L, Instant.parse("2011-01-01T00:00:00Z")).isEmpty());
+    }
+
+    @Test
+    @Sql(scripts = "classpath:scripts/add_test_group_and_payments_with_different_co_payers.sql")
+    void findAllByGroupIdAndCoPayer_UserIsCoPayerOfTwoPayments_ReturnOnlyThesePayments() {
+        List<Payment> found = repository.findAllByGroupIdAndCoPayer(1L, 1L);
+
+        assertEquals(2, found.size());
+        assertEquals(1L, found.get(0).getId());
+        assertEquals(3L, found.get(1).getId());
+        assertEquals(LongIdSet.of(1L, 2L, 3L), found.get(1).getCoPayers());
+    }
+
+    @Test
+    @Sql(scripts = "classpath:scripts/add_test_group_and_payments_with_different_co_payers.sql")
+    void findAllByGroupIdAndCoPayer_OtherGroup_ReturnNothing() {
+        assertTrue(repository.findAllByGroupIdAndCoPayer(2L, 1L).isEmpty());
+    }
+
+    @Test
+    @Sql(scripts = "classpath:scripts/add_test_group_and_payments_with_different_co_payers.sql")
+    void findAllByGroupIdSharedByCoPayers_UsersShareOnePayment_ReturnOnlyThisPayment() {
+        List<Payment> found = repository.findAllByGroupIdSharedByCoPayers(1L, 1L, 3L);
+
+        assertEquals(1, found.size());
+        assertEquals(3L, found.get(0).getId());
+    }
+
+    @Test
+    @Sql(scripts = "classpath:scripts/add_test_group_and_payments_with_different_co_payers.sql")
+    void findAllByGroupIdSharedByCoPayers_UsersShareAllPayments_ReturnPaymentsOnce() {
+        List<Payment> found = repository.findAllByGroupIdSharedByCoPayers(1L, 2L, 2L);
+
+        assertEquals(3, found.size());
+    }
+
+    @Test
+    @Sql(scripts = "classpath:scripts/add_test_group_and_two_payments.sql")
+    void findAllByGroupIdOrderById_GroupHasTwoPayments_ReturnBothInIdOrder() {
+        List<Payment> found = repository.findAllByGroupIdOrderById(1L);
+
+        assertEquals(2, found.size());
+        assertEquals(1L, found.get(0).getId());
+        assertEquals(2L, found.get(1).getId());
+    }
+
+    @Test
+    @Sql(scripts = "classpath:scripts/add_test_group_and_payments_with_different_co_payers.sql")
+    void findPageIdsByGroupId_LimitIsSmallerThanHistory_ReturnOldestIds() {
+        List<Long> ids = repository.findPageIdsByGroupId(1L, PageRequest.of(0, 2));
+
+        assertEquals(Arrays.asList(1L, 2L), ids);
+    }
+
+    @Test
+    @Sql(scripts = "classpath:scripts/add_test_group_and_payments_with_different_co_payers.sql")
+    void findPageIdsByGroupIdAfter_CursorOfFirstPayment_ReturnLaterIds() {
+        List<Long> ids = repository.findPageIdsByGroupIdAfter(1L, Instant.parse("2012-01-01T00:00:00Z"), 1L,
+                PageRequest.of(0, 10));
+
+        assertEquals(Arrays.asList(2L, 3L), ids);
+    }
+
+    @Test
+    @Sql(scripts = "classpath:scripts/add_test_group_and_payments_with_different_co_payers.sql")
+    void findPageIdsByGroupIdAfter_SameTimestampAsCursor_ReturnOnlyHigherIds() {
+        List<Long> ids = repository.findPageIdsByGroupIdAfter(1L, Instant.parse("2013-01-01T00:00:00Z"), 1L,
+                PageRequest.of(0, 10));
+
+        assertEquals(Arrays.asList(2L, 3L), ids);
+    }
+
+    @Test
+    @Sql(scripts = "classpath:scripts/add_test_group_and_payments_with_different_co_payers.sql")
+    void findAllWithCoPayersByIdIn_TwoIds_ReturnPaymentsOnceWithCoPayers() {
+        List<Payment> found = repository.findAllWithCoPayersByIdIn(Arrays.asList(3L, 1L));
+
+        assertEquals(2, found.size());
+        assertEquals(LongIdSet.of(1L, 2L), found.get(0).getCoPayers());
+        assertEquals(LongIdSet.of(1L, 2L, 3L), found.get(1).getCoPayers());
+    }
+
+    @Test
+    @Sql(scripts = "classpath:scripts/add_test_group_and_payments_with_different_co_payers.sql")
+    void streamAllByGroupId_GroupHasThreePayments_StreamEachPaymentOnceInTimestampOrder() {
+        try (Stream<Payment> payments = repository.streamAllByGroupId(1L)) {
+            List<Payment> streamed = payments.collect(Collectors.toList());
+
+            assertEquals(Arrays.asList(1L, 2L, 3L), streamed.stream().map(Payment::getId).collect(Collectors.toList()));
+            assertEquals(LongIdSet.of(2L, 3L), streamed.get(1).getCoPayers());
+        }
+    }
+
+    @Test
+    @Sql(scripts = "classpath:scripts/add_test_group_and_payment.sql")
+    void findByIdAndGroupId_PaymentIsInGroup_ReturnPaymentWithCoPayers() {
+        Payment found = repository.findByIdAndGroupId(1L, 1L).get();
+
+        assertEquals("testing payment description", found.getPaymentDescription());
+        assertEquals(LongIdSet.of(1L, 2L, 3L), found.getCoPayers());
+        assertEquals(Currency.UAH, found.getGroup().getCurrency());
+    }
+
+    @Test
+    @Sql(scripts = "classpath:scripts/add_test_group_and_payment.sql")
+    void findByIdAndGroupId_PaymentIsInOtherGroup_ReturnNothing() {
+        assertFalse(repository.findByIdAndGroupId(1L, 2L).isPresent());
+    }
+
+    @Test
+    @Sql(scripts = "classpath:scripts/add_test_group_and_payments_with_different_co_payers.sql")
+    void deleteByIdAndGroupId_PaymentIsInGroup_DeleteOneRow() {
+        repository.deleteCoPayersByPaymentId(2L);
+
+        assertEquals(1, repository.deleteByIdAndGroupId(2L, 1L));
+        assertEquals(Arrays.asList(1L, 3L), repository.findPageIdsByGroupId(1L, PageRequest.of(0, 10)));
+    }
+
+    @Test
+    @Sql(scripts = "classpath:scripts/add_test_group_and_payments_with_different_co_payers.sql")
+    void deleteByIdAndGroupId_PaymentIsInOtherGroup_DeleteNothing() {
+        assertEquals(0, repository.deleteByIdAndGroupId(2L, 2L));
+    }
+
+    @Test
+    @Sql(scripts = "classpath:scripts/add_test_group_and_payments_with_different_co_payers.sql")
+    void deleteAllByGroupId_GroupHasThreePayments_DeleteAllRowsInTwoStatements() {
+        assertEquals(7, repository.deleteCoPayersByGroupId(1L));
+        assertEquals(3, repository.deleteAllByGroupId(1L));
+        assertTrue(repository.findAllByGroupIdOrderById(1L).isEmpty());
+    }
+
+    @Test
+    @Sql(scripts = "classpath:scripts/add_test_group.sql")
+    void saveAll_ManyPayments_AssignIdsWithoutInsertingAndFlushThemInBatches() {
+        List<Payment> payments = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            payments.add(Payment.builder()
+                    .creatorId(1L)
+                    .group(group)
+                    .price(100L + i)
+                    .coPayers(LongIdSet.of(1L, 2L))
+                    .paymentDescription("imported " + i)
+                    .build());
+        }
+
+        repository.saveAll(payments);
+        for (int i = 1; i < payments.size(); i++) {
+            assertEquals(payments.get(i - 1).getId() + 1, payments.get(i).getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(20, repository.findAllByGroupIdOrderById(1L).size());
+        assertEquals(LongIdSet.of(1L, 2L), repository.findById(payments.get(19).getId()).get().getCoPayers());
+    }
+}
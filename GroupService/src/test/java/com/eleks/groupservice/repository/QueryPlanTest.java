@@ -0,0 +1,233 @@
+package com.eleks.groupservice.repository;
+
+import com.eleks.groupservice.domain.Currency;
+import org.hibernate.Session;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs every repository query against the Flyway schema on H2 in MySQL mode, seeded with a generated dataset, and
+ * fails when the plan of any issued statement reads a table without an index condition. Queries which read whole
+ * tables by design are listed in {@link #FULL_SCANS_ALLOWED}.
+ */
+@ExtendWith(SpringExtension.class)
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query_plan;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.eleks.groupservice.repository.QueryPlanTest$RecordingStatementInspector"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class QueryPlanTest {
+
+    private static final Set<String> FULL_SCANS_ALLOWED = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            // balance rebuild of every group
+            "GroupRepository.findAllWithPayments",
+            // snapshot compaction job, scans all payments older than the settle delay
+            "PaymentRepository.findGroupsIdsWithPaymentsSinceSnapshot")));
+
+    private static final Pattern TABLE_ACCESS =
+            Pattern.compile("/\\* PUBLIC\\.(\\w+)(\\.tableScan)?( \\*/|: )", Pattern.CASE_INSENSITIVE);
+
+    private static final Long GROUP_ID = 7L;
+    private static final Long USER_ID = 8L;
+    private static final Long MISSING_ID = 999_999L;
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private GroupBalanceRepository groupBalanceRepository;
+
+    @Autowired
+    private BalanceSnapshotRepository balanceSnapshotRepository;
+
+    @Autowired
+    private BalanceSnapshotEntryRepository balanceSnapshotEntryRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void queries_EveryRepositoryMethodHasPlanCase() {
+        Set<String> cases = queries().keySet();
+        List<String> missing = Stream.of(GroupRepository.class, PaymentRepository.class, GroupBalanceRepository.class,
+                BalanceSnapshotRepository.class, BalanceSnapshotEntryRepository.class)
+                .flatMap(repository -> Arrays.stream(repository.getDeclaredMethods())
+                        .map(method -> repository.getSimpleName() + "." + method.getName()))
+                .filter(name -> !cases.contains(name))
+                .sorted()
+                .collect(Collectors.toList());
+
+        assertEquals(Collections.emptyList(), missing);
+    }
+
+    @Test
+    @Sql(scripts = "classpath:scripts/add_query_plan_dataset.sql")
+    void queries_LargeDataset_EveryStatementReadsTablesByIndex() {
+        List<String> failures = new ArrayList<>();
+        queries().forEach((name, query) -> {
+            entityManager.flush();
+            entityManager.clear();
+            RecordingStatementInspector.STATEMENTS.clear();
+
+            query.run();
+            entityManager.flush();
+
+            List<String> statements = new ArrayList<>(RecordingStatementInspector.STATEMENTS);
+            if (statements.isEmpty()) {
+                failures.add(name + " issued no statement");
+            }
+            if (FULL_SCANS_ALLOWED.contains(name)) {
+                return;
+            }
+            for (String sql : statements) {
+                String plan = explain(sql);
+                for (String table : fullScans(plan)) {
+                    failures.add(name + " reads " + table + " without an index condition: " + plan);
+                }
+            }
+        });
+
+        assertTrue(failures.isEmpty(), String.join("\n", failures));
+    }
+
+    @Test
+    void fullScans_PlanWithTableScanAndUnboundedIndexScan_ReturnBoth() {
+        String plan = "SELECT P.ID FROM PUBLIC.PAYMENT P /* PUBLIC.PAYMENT.tableScan */ " +
+                "INNER JOIN PUBLIC.USER_GROUP G /* PUBLIC.PRIMARY_KEY_D */ ON 1=1 " +
+                "INNER JOIN PUBLIC.GROUP_MEMBER M /* PUBLIC.PRIMARY_KEY_4: GROUP_ID = G.ID */ ON 1=1";
+
+        assertEquals(Arrays.asList("PAYMENT", "PRIMARY_KEY_D"), fullScans(plan));
+    }
+
+    private Map<String, Runnable> queries() {
+        Instant timestamp = Instant.parse("2020-01-01T06:00:00Z");
+        PageRequest page = PageRequest.of(0, 21);
+
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("GroupRepository.existsById", () -> groupRepository.existsById(GROUP_ID));
+        queries.put("GroupRepository.findById", () -> groupRepository.findById(GROUP_ID));
+        queries.put("GroupRepository.findWithPaymentsById", () -> groupRepository.findWithPaymentsById(GROUP_ID));
+        queries.put("GroupRepository.findAllWithPayments", () -> groupRepository.findAllWithPayments());
+        queries.put("GroupRepository.lockById", () -> groupRepository.lockById(GROUP_ID));
+        queries.put("GroupRepository.findVersionById", () -> groupRepository.findVersionById(GROUP_ID));
+        queries.put("GroupRepository.isMember", () -> groupRepository.isMember(GROUP_ID, USER_ID));
+        queries.put("GroupRepository.findGroupsIdsByMemberId", () -> groupRepository.findGroupsIdsByMemberId(USER_ID));
+        queries.put("GroupRepository.findAllByMemberId", () -> groupRepository.findAllByMemberId(USER_ID));
+        queries.put("GroupRepository.updateGroup",
+                () -> groupRepository.updateGroup(MISSING_ID, "renamed", Currency.EUR));
+        queries.put("GroupRepository.updateGroupIfVersionMatches",
+                () -> groupRepository.updateGroupIfVersionMatches(MISSING_ID, 0L, "renamed", Currency.EUR));
+        queries.put("GroupRepository.deleteMembersByGroupId", () -> groupRepository.deleteMembersByGroupId(MISSING_ID));
+        queries.put("GroupRepository.deleteGroupById", () -> groupRepository.deleteGroupById(MISSING_ID));
+
+        queries.put("PaymentRepository.findByIdAndGroupId", () -> paymentRepository.findByIdAndGroupId(GROUP_ID - 1, GROUP_ID));
+        queries.put("PaymentRepository.findAllByGroupIdOrderById", () -> paymentRepository.findAllByGroupIdOrderById(GROUP_ID));
+        queries.put("PaymentRepository.findAllByGroupIdAndIdGreaterThanOrderById",
+                () -> paymentRepository.findAllByGroupIdAndIdGreaterThanOrderById(GROUP_ID, 40000L));
+        queries.put("PaymentRepository.findPageIdsByGroupId", () -> paymentRepository.findPageIdsByGroupId(GROUP_ID, page));
+        queries.put("PaymentRepository.findPageIdsByGroupIdAfter",
+                () -> paymentRepository.findPageIdsByGroupIdAfter(GROUP_ID, timestamp, 20000L, page));
+        queries.put("PaymentRepository.findAllWithCoPayersByIdIn",
+                () -> paymentRepository.findAllWithCoPayersByIdIn(Arrays.asList(6L, 1006L, 2006L)));
+        queries.put("PaymentRepository.streamAllByGroupId", () -> {
+            try (Stream<?> payments = paymentRepository.streamAllByGroupId(GROUP_ID)) {
+                payments.count();
+            }
+        });
+        queries.put("PaymentRepository.findAllByGroupIdAndCoPayer",
+                () -> paymentRepository.findAllByGroupIdAndCoPayer(GROUP_ID, USER_ID));
+        queries.put("PaymentRepository.findAllByGroupIdSharedByCoPayers",
+                () -> paymentRepository.findAllByGroupIdSharedByCoPayers(GROUP_ID, GROUP_ID, USER_ID));
+        queries.put("PaymentRepository.findGroupsIdsWithPaymentsSinceSnapshot",
+                () -> paymentRepository.findGroupsIdsWithPaymentsSinceSnapshot(500, timestamp));
+        queries.put("PaymentRepository.deleteCoPayersByPaymentId", () -> paymentRepository.deleteCoPayersByPaymentId(MISSING_ID));
+        queries.put("PaymentRepository.deleteCoPayersByGroupId", () -> paymentRepository.deleteCoPayersByGroupId(MISSING_ID));
+        queries.put("PaymentRepository.deleteByIdAndGroupId", () -> paymentRepository.deleteByIdAndGroupId(MISSING_ID, GROUP_ID));
+        queries.put("PaymentRepository.deleteAllByGroupId", () -> paymentRepository.deleteAllByGroupId(MISSING_ID));
+
+        queries.put("GroupBalanceRepository.findAllByGroupIdAndUserA",
+                () -> groupBalanceRepository.findAllByGroupIdAndUserA(GROUP_ID, GROUP_ID));
+        queries.put("GroupBalanceRepository.findAllByUserA", () -> groupBalanceRepository.findAllByUserA(GROUP_ID));
+        queries.put("GroupBalanceRepository.addToAmount",
+                () -> groupBalanceRepository.addToAmount(MISSING_ID, GROUP_ID, USER_ID, 100L));
+        queries.put("GroupBalanceRepository.deleteAllByGroupId", () -> groupBalanceRepository.deleteAllByGroupId(MISSING_ID));
+
+        queries.put("BalanceSnapshotRepository.findById", () -> balanceSnapshotRepository.findById(GROUP_ID));
+        queries.put("BalanceSnapshotRepository.deleteByGroupId", () -> balanceSnapshotRepository.deleteByGroupId(MISSING_ID));
+
+        queries.put("BalanceSnapshotEntryRepository.findAllByGroupId",
+                () -> balanceSnapshotEntryRepository.findAllByGroupId(GROUP_ID));
+        queries.put("BalanceSnapshotEntryRepository.deleteAllByGroupId",
+                () -> balanceSnapshotEntryRepository.deleteAllByGroupId(MISSING_ID));
+        return queries;
+    }
+
+    private String explain(String sql) {
+        return entityManager.getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                int parameters = statement.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= parameters; i++) {
+                    statement.setNull(i, Types.NULL);
+                }
+                try (ResultSet plan = statement.executeQuery()) {
+                    plan.next();
+                    return plan.getString(1);
+                }
+            }
+        });
+    }
+
+    private static List<String> fullScans(String plan) {
+        List<String> scanned = new ArrayList<>();
+        Matcher access = TABLE_ACCESS.matcher(plan);
+        while (access.find()) {
+            if (access.group(2) != null || access.group(3).trim().equals("*/")) {
+                scanned.add(access.group(1));
+            }
+        }
+        return scanned;
+    }
+
+    public static class RecordingStatementInspector implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.eleks.groupservice.service;
+
+import com.eleks.groupservice.domain.Currency;
+import com.eleks.groupservice.domain.Group;
+import com.eleks.groupservice.domain.GroupBalance;
+import com.eleks.groupservice.domain.LongIdSet;
+import com.eleks.groupservice.domain.Payment;
+import com.eleks.groupservice.exception.ResourceNotFoundException;
+import com.eleks.groupservice.repository.GroupBalanceRepository;
+import com.eleks.groupservice.repository.GroupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceLedgerServiceImplTest {
+
+    @Mock
+    private GroupBalanceRepository balanceRepository;
+
+    @Mock
+    private GroupRepository groupRepository;
+
+    private BalanceLedgerServiceImpl service;
+
+    private Group group;
+
+    private Payment payment;
+
+    @BeforeEach
+    public void setUp() {
+        service = new BalanceLedgerServiceImpl(balanceRepository, groupRepository);
+
+        group = Group.builder()
+                .id(1L)
+                .groupName("groupName")
+                .currency(Currency.UAH)
+                .members(LongIdSet.of(1L, 2L, 3L))
+                .build();
+
+        payment = Payment.builder()
+                .id(1L)
+                .creatorId(1L)
+                .group(group)
+                .price(9000L)
+                .coPayers(LongIdSet.of(1L, 2L, 3L))
+                .build();
+    }
+
+    @Test
+    public void applyPayment_ShouldUpsertDebtInBothDirections() {
+        service.applyPayment(payment);
+
+        verify(balanceRepository).addToAmount(1L, 1L, 2L, 3000L);
+        verify(balanceRepository).addToAmount(1L, 2L, 1L, -3000L);
+        verify(balanceRepository).addToAmount(1L, 1L, 3L, 3000L);
+        verify(balanceRepository).addToAmount(1L, 3L, 1L, -3000L);
+        verify(balanceRepository, never()).save(any(GroupBalance.class));
+    }
+
+    @Test
+    public void applyPayments_TwoPaymentsOfSamePair_ShouldUpdateEveryPairOnce() {
+        Payment secondPayment = Payment.builder()
+                .id(2L)
+                .creatorId(2L)
+                .group(group)
+                .price(1000L)
+                .coPayers(LongIdSet.of(1L, 2L))
+                .build();
+
+        service.applyPayments(1L, Arrays.asList(payment, secondPayment));
+
+        verify(balanceRepository).addToAmount(1L, 1L, 2L, 2500L);
+        verify(balanceRepository).addToAmount(1L, 2L, 1L, -2500L);
+        verify(balanceRepository).addToAmount(1L, 1L, 3L, 3000L);
+        verify(balanceRepository).addToAmount(1L, 3L, 1L, -3000L);
+        verifyNoMoreInteractions(balanceRepository);
+    }
+
+    @Test
+    public void revertPayment_ShouldSubtractDebtInBothDirections() {
+        service.revertPayment(payment);
+
+        verify(balanceRepository).addToAmount(1L, 1L, 2L, -3000L);
+        verify(balanceRepository).addToAmount(1L, 2L, 1L, 3000L);
+        verify(balanceRepository).addToAmount(1L, 1L, 3L, -3000L);
+        verify(balanceRepository).addToAmount(1L, 3L, 1L, 3000L);
+    }
+
+    @Test
+    public void getBalances_RowsExist_ReturnAmountsByCounterpartId() {
+        when(balanceRepository.findAllByGroupIdAndUserA(1L, 1L)).thenReturn(Arrays.asList(
+                new GroupBalance(1L, 1L, 2L, 3000L),
+                new GroupBalance(1L, 1L, 3L, -1500L)));
+
+        Map<Long, Long> balances = service.getBalances(1L, 1L);
+
+        assertEquals(2, balances.size());
+        assertEquals(3000L, balances.get(2L).longValue());
+        assertEquals(-1500L, balances.get(3L).longValue());
+    }
+
+    @Test
+    public void getBalancesOfUser_RowsInTwoGroupsExist_ReturnAmountsGroupedByGroupId() {
+        when(balanceRepository.findAllByUserA(1L)).thenReturn(Arrays.asList(
+                new GroupBalance(1L, 1L, 2L, 3000L),
+                new GroupBalance(1L, 1L, 3L, -1500L),
+                new GroupBalance(2L, 1L, 2L, 700L)));
+
+        Map<Long, Map<Long, Long>> balances = service.getBalancesOfUser(1L);
+
+        assertEquals(2, balances.size());
+        assertEquals(-1500L, balances.get(1L).get(3L).longValue());
+        assertEquals(700L, balances.get(2L).get(2L).longValue());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void rebuildBalances_GroupHasPayments_ShouldReplaceRowsWithRecomputedOnes() {
+        Payment secondPayment = Payment.builder()
+                .id(2L)
+                .creatorId(2L)
+                .group(group)
+                .price(2000L)
+                .coPayers(LongIdSet.of(1L, 2L))
+                .build();
+        group.setPayments(Arrays.asList(payment, secondPayment));
+
+        when(groupRepository.findWithPaymentsById(group.getId())).thenReturn(Optional.of(group));
+
+        service.rebuildBalances(group.getId());
+
+        ArgumentCaptor<List<GroupBalance>> captor = ArgumentCaptor.forClass(List.class);
+        verify(balanceRepository).deleteAllByGroupId(group.getId());
+        verify(balanceRepository).saveAll(captor.capture());
+        assertEquals(4, captor.getValue().size());
+        assertTrue(captor.getValue().contains(new GroupBalance(1L, 1L, 2L, 2000L)));
+        assertTrue(captor.getValue().contains(new GroupBalance(1L, 2L, 1L, -2000L)));
+        assertTrue(captor.getValue().contains(new GroupBalance(1L, 1L, 3L, 3000L)));
+        assertTrue(captor.getValue().contains(new GroupBalance(1L, 3L, 1L, -3000L)));
+    }
+
+    @Test
+    public void rebuildBalances_GroupDoesntExist_ThrowResourceNotFoundException() {
+        when(groupRepository.findWithPaymentsById(group.getId())).thenReturn(Optional.empty());
+
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class,
+                () -> service.rebuildBalances(group.getId()));
+
+        assertEquals("Group doesn't exist", exception.getMessage());
+    }
+}
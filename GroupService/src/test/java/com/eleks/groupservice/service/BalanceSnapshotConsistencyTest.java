@@ -0,0 +1,95 @@
+package com.eleks.groupservice.service;
+
+import com.eleks.groupservice.domain.Payment;
+import com.eleks.groupservice.dto.PaymentRequestDto;
+import com.eleks.groupservice.dto.PaymentResponseDto;
+import com.eleks.groupservice.repository.BalanceSnapshotRepository;
+import com.eleks.groupservice.repository.GroupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The group snapshot in the script already covers payment 1000000, which stands for an id block handed out to
+ * another instance. Payments created here get lower ids and still have to show up in the balance replay. Runs on H2
+ * in MySQL mode for the ledger upsert.
+ */
+@ExtendWith(SpringExtension.class)
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:snapshot_consistency;MODE=MySQL;DB_CLOSE_DELAY=-1")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PaymentServiceImpl.class, BalanceLedgerServiceImpl.class, BalanceSnapshotServiceImpl.class})
+@ImportAutoConfiguration(ValidationAutoConfiguration.class)
+@Sql(scripts = "classpath:scripts/add_test_snapshot_ahead_of_payment_ids.sql")
+class BalanceSnapshotConsistencyTest {
+
+    private static final Long LATER_BLOCK_PAYMENT_ID = 1_000_000L;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private BalanceSnapshotService balanceSnapshotService;
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private BalanceSnapshotRepository snapshotRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private PaymentRequestDto request;
+
+    @BeforeEach
+    void setUp() {
+        request = PaymentRequestDto.builder()
+                .paymentDescription("out of order")
+                .price(new BigDecimal("30.00"))
+                .coPayers(Arrays.asList(1L, 2L))
+                .build();
+    }
+
+    @Test
+    void createPayment_IdBelowLastPaymentOfSnapshot_ReplayIncludesPayment() {
+        PaymentResponseDto created = paymentService.createPayment(1L, 2L, request);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertTrue(created.getId() < LATER_BLOCK_PAYMENT_ID);
+        assertFalse(snapshotRepository.existsById(1L));
+        assertEquals(Arrays.asList(created.getId(), LATER_BLOCK_PAYMENT_ID), replayedPaymentIds());
+    }
+
+    @Test
+    void createPayments_IdsBelowLastPaymentOfSnapshot_ReplayIncludesPayments() {
+        paymentService.createPayments(1L, 2L, Arrays.asList(request, request));
+
+        assertFalse(snapshotRepository.existsById(1L));
+        assertEquals(3, replayedPaymentIds().size());
+    }
+
+    private List<Long> replayedPaymentIds() {
+        return balanceSnapshotService.getBalanceHistory(groupRepository.findById(1L).get())
+                .getPayments()
+                .stream()
+                .map(Payment::getId)
+                .collect(toList());
+    }
+}
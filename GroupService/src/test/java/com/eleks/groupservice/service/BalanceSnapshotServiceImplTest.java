@@ -0,0 +1,200 @@
+package com.eleks.groupservice.service;
+
+import com.eleks.groupservice.domain.BalanceSnapshot;
+import com.eleks.groupservice.domain.BalanceSnapshotEntry;
+import com.eleks.groupservice.domain.Currency;
+import com.eleks.groupservice.domain.Group;
+import com.eleks.groupservice.domain.LongIdSet;
+import com.eleks.groupservice.domain.Payment;
+import com.eleks.groupservice.repository.BalanceSnapshotEntryRepository;
+import com.eleks.groupservice.repository.BalanceSnapshotRepository;
+import com.eleks.groupservice.repository.GroupRepository;
+import com.eleks.groupservice.repository.PaymentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceSnapshotServiceImplTest {
+
+    @Mock
+    private BalanceSnapshotRepository snapshotRepository;
+
+    @Mock
+    private BalanceSnapshotEntryRepository entryRepository;
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @Mock
+    private GroupRepository groupRepository;
+
+    private BalanceSnapshotServiceImpl service;
+
+    private Group group;
+
+    private Payment payment;
+
+    @BeforeEach
+    public void setUp() {
+        service = new BalanceSnapshotServiceImpl(snapshotRepository, entryRepository, paymentRepository, groupRepository,
+                500L, 60000L);
+
+        group = Group.builder()
+                .id(1L)
+                .groupName("groupName")
+                .currency(Currency.UAH)
+                .members(LongIdSet.of(1L, 2L, 3L))
+                .build();
+
+        payment = Payment.builder()
+                .id(5L)
+                .creatorId(1L)
+                .group(group)
+                .price(9000L)
+                .coPayers(LongIdSet.of(1L, 2L, 3L))
+                .timestamp(Instant.parse("2019-01-01T00:00:00Z"))
+                .build();
+        group.getPayments().add(payment);
+    }
+
+    @Test
+    public void getBalanceHistory_NoSnapshot_ReturnAllGroupPayments() {
+        when(snapshotRepository.findById(group.getId())).thenReturn(Optional.empty());
+        when(paymentRepository.findAllByGroupIdOrderById(group.getId())).thenReturn(group.getPayments());
+
+        BalanceHistory history = service.getBalanceHistory(group);
+
+        assertTrue(history.getSnapshotEntries().isEmpty());
+        assertEquals(group.getPayments(), history.getPayments());
+        verify(paymentRepository, never()).findAllByGroupIdAndIdGreaterThanOrderById(any(), any());
+    }
+
+    @Test
+    public void getBalanceHistory_SnapshotExists_ReturnEntriesAndOnlyNewerPayments() {
+        List<BalanceSnapshotEntry> entries = Arrays.asList(
+                new BalanceSnapshotEntry(1L, 1L, 2L, 3000L),
+                new BalanceSnapshotEntry(1L, 2L, 1L, -3000L));
+
+        when(snapshotRepository.findById(group.getId()))
+                .thenReturn(Optional.of(new BalanceSnapshot(group.getId(), 4L, Instant.now())));
+        when(entryRepository.findAllByGroupId(group.getId())).thenReturn(entries);
+        when(paymentRepository.findAllByGroupIdAndIdGreaterThanOrderById(group.getId(), 4L))
+                .thenReturn(Collections.singletonList(payment));
+
+        BalanceHistory history = service.getBalanceHistory(group);
+
+        assertEquals(entries, history.getSnapshotEntries());
+        assertEquals(Collections.singletonList(payment), history.getPayments());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void createSnapshot_PreviousSnapshotExists_ShouldFoldSettledPaymentsIntoIt() {
+        Payment recentPayment = Payment.builder()
+                .id(6L)
+                .creatorId(2L)
+                .group(group)
+                .price(2000L)
+                .coPayers(LongIdSet.of(1L, 2L))
+                .timestamp(Instant.now())
+                .build();
+
+        when(groupRepository.lockById(group.getId())).thenReturn(Optional.of(group.getId()));
+        when(snapshotRepository.findById(group.getId()))
+                .thenReturn(Optional.of(new BalanceSnapshot(group.getId(), 4L, Instant.now())));
+        when(entryRepository.findAllByGroupId(group.getId())).thenReturn(Arrays.asList(
+                new BalanceSnapshotEntry(1L, 2L, 1L, 1000L),
+                new BalanceSnapshotEntry(1L, 1L, 2L, -1000L)));
+        when(paymentRepository.findAllByGroupIdAndIdGreaterThanOrderById(group.getId(), 4L))
+                .thenReturn(Arrays.asList(payment, recentPayment));
+
+        service.createSnapshot(group.getId());
+
+        ArgumentCaptor<List<BalanceSnapshotEntry>> captor = ArgumentCaptor.forClass(List.class);
+        verify(entryRepository).deleteAllByGroupId(group.getId());
+        verify(entryRepository).saveAll(captor.capture());
+        assertEquals(4, captor.getValue().size());
+        assertTrue(captor.getValue().contains(new BalanceSnapshotEntry(1L, 1L, 2L, 2000L)));
+        assertTrue(captor.getValue().contains(new BalanceSnapshotEntry(1L, 2L, 1L, -2000L)));
+        assertTrue(captor.getValue().contains(new BalanceSnapshotEntry(1L, 1L, 3L, 3000L)));
+        assertTrue(captor.getValue().contains(new BalanceSnapshotEntry(1L, 3L, 1L, -3000L)));
+
+        ArgumentCaptor<BalanceSnapshot> snapshotCaptor = ArgumentCaptor.forClass(BalanceSnapshot.class);
+        verify(snapshotRepository).save(snapshotCaptor.capture());
+        assertEquals(payment.getId(), snapshotCaptor.getValue().getLastPaymentId());
+    }
+
+    @Test
+    public void createSnapshot_NoSettledPayments_ShouldKeepPreviousSnapshot() {
+        payment.setTimestamp(Instant.now());
+
+        when(groupRepository.lockById(group.getId())).thenReturn(Optional.of(group.getId()));
+        when(snapshotRepository.findById(group.getId())).thenReturn(Optional.empty());
+        when(entryRepository.findAllByGroupId(group.getId())).thenReturn(Collections.emptyList());
+        when(paymentRepository.findAllByGroupIdAndIdGreaterThanOrderById(group.getId(), 0L))
+                .thenReturn(Collections.singletonList(payment));
+
+        service.createSnapshot(group.getId());
+
+        verify(entryRepository, never()).saveAll(anyList());
+        verify(snapshotRepository, never()).save(any(BalanceSnapshot.class));
+    }
+
+    @Test
+    public void createSnapshot_GroupDeleted_ShouldDoNothing() {
+        when(groupRepository.lockById(group.getId())).thenReturn(Optional.empty());
+
+        service.createSnapshot(group.getId());
+
+        verifyNoInteractions(snapshotRepository, entryRepository, paymentRepository);
+    }
+
+    @Test
+    public void invalidateSnapshot_PaymentCoveredBySnapshot_ShouldDeleteSnapshot() {
+        when(snapshotRepository.findById(group.getId()))
+                .thenReturn(Optional.of(new BalanceSnapshot(group.getId(), 5L, Instant.now())));
+
+        service.invalidateSnapshot(payment);
+
+        verify(entryRepository).deleteAllByGroupId(group.getId());
+        verify(snapshotRepository).deleteByGroupId(group.getId());
+    }
+
+    @Test
+    public void invalidateSnapshot_PaymentNewerThanSnapshot_ShouldKeepSnapshot() {
+        when(snapshotRepository.findById(group.getId()))
+                .thenReturn(Optional.of(new BalanceSnapshot(group.getId(), 4L, Instant.now())));
+
+        service.invalidateSnapshot(payment);
+
+        verify(entryRepository, never()).deleteAllByGroupId(any());
+        verify(snapshotRepository, never()).deleteByGroupId(any());
+    }
+
+    @Test
+    public void invalidateSnapshot_OneOfPaymentsHasIdBelowLastSnapshotPayment_ShouldDeleteSnapshot() {
+        Payment outOfOrderPayment = Payment.builder().id(3L).group(group).build();
+        when(snapshotRepository.findById(group.getId()))
+                .thenReturn(Optional.of(new BalanceSnapshot(group.getId(), 4L, Instant.now())));
+
+        service.invalidateSnapshot(group.getId(), Arrays.asList(payment, outOfOrderPayment));
+
+        verify(entryRepository).deleteAllByGroupId(group.getId());
+        verify(snapshotRepository).deleteByGroupId(group.getId());
+    }
+}
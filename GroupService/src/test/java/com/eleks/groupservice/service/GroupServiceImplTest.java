@@ -1,29 +1,53 @@
 package com.eleks.groupservice.service;
 
 import com.eleks.groupservice.client.UserClient;
+import com.eleks.groupservice.client.UserLookupResult;
+import com.eleks.groupservice.domain.BalanceSnapshotEntry;
 import com.eleks.groupservice.domain.Currency;
 import com.eleks.groupservice.domain.Group;
+import com.eleks.groupservice.domain.LongIdSet;
+import com.eleks.groupservice.domain.Payment;
+import com.eleks.groupservice.dto.DebtDto;
+import com.eleks.groupservice.dto.GroupBalancesResponseDto;
 import com.eleks.groupservice.dto.GroupRequestDto;
 import com.eleks.groupservice.dto.GroupResponseDto;
+import com.eleks.groupservice.dto.MemberDto;
+import com.eleks.groupservice.dto.SettlementResponseDto;
+import com.eleks.groupservice.dto.TransferDto;
 import com.eleks.groupservice.dto.UserDto;
 import com.eleks.groupservice.dto.StatusResponseDto;
+import com.eleks.groupservice.dto.UserGroupBalanceDto;
+import com.eleks.groupservice.exception.GroupVersionMismatchException;
 import com.eleks.groupservice.exception.ResourceNotFoundException;
+import com.eleks.groupservice.exception.UserServiceException;
 import com.eleks.groupservice.exception.UsersIdsValidationException;
 import com.eleks.groupservice.repository.GroupRepository;
+import com.eleks.groupservice.repository.PaymentRepository;
 import com.google.common.collect.Lists;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 
+import static java.util.concurrent.CompletableFuture.completedFuture;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,9 +56,21 @@ class GroupServiceImplTest {
     @Mock
     private GroupRepository repository;
 
+    @Mock
+    private PaymentRepository paymentRepository;
+
     @Mock
     private UserClient client;
 
+    @Mock
+    private BalanceLedgerService balanceLedgerService;
+
+    @Mock
+    private BalanceSnapshotService balanceSnapshotService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     private GroupServiceImpl service;
 
     private GroupRequestDto requestDto;
@@ -43,7 +79,8 @@ class GroupServiceImplTest {
 
     @BeforeEach
     public void setUp() {
-        service = new GroupServiceImpl(repository, client);
+        service = new GroupServiceImpl(repository, paymentRepository, client, balanceLedgerService, balanceSnapshotService,
+                new TransactionTemplate(transactionManager), ForkJoinPool.commonPool(), 20000);
 
         requestDto = GroupRequestDto.builder()
                 .groupName("groupName")
@@ -55,7 +92,7 @@ class GroupServiceImplTest {
                 .id(21L)
                 .groupName(requestDto.getGroupName())
                 .currency(requestDto.getCurrency())
-                .members(requestDto.getMembers())
+                .members(LongIdSet.copyOf(requestDto.getMembers()))
                 .build();
     }
 
@@ -99,26 +136,72 @@ class GroupServiceImplTest {
 
     @Test
     public void editGroup_GroupAndMembersAreExist_ReturnResponseDto() {
-        when(repository.findById(group.getId())).thenReturn(Optional.of(group));
         when(client.areUserIdsValid(requestDto.getMembers())).thenReturn(true);
+        when(repository.updateGroupIfVersionMatches(group.getId(), 3L, requestDto.getGroupName(), requestDto.getCurrency()))
+                .thenReturn(1);
 
-        when(repository.save(any(Group.class))).thenReturn(group);
-
-        GroupResponseDto result = service.editGroup(group.getId(), requestDto);
+        GroupResponseDto result = service.editGroup(group.getId(), 3L, requestDto);
 
         assertNotNull(result);
         assertEquals(group.getId(), result.getId());
+        assertEquals(4L, result.getVersion());
+        assertEquals(requestDto.getMembers(), result.getMembers());
+        verify(repository).deleteMembersByGroupId(group.getId());
+        verify(repository).insertMembers(group.getId(), Arrays.asList(1L, 2L, 3L));
+        verify(repository, never()).save(any(Group.class));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    public void editGroup_WithoutVersion_UpdateUnconditionallyAndReturnCurrentVersion() {
+        when(client.areUserIdsValid(requestDto.getMembers())).thenReturn(true);
+        when(repository.updateGroup(group.getId(), requestDto.getGroupName(), requestDto.getCurrency())).thenReturn(1);
+        when(repository.findVersionById(group.getId())).thenReturn(Optional.of(7L));
+
+        GroupResponseDto result = service.editGroup(group.getId(), null, requestDto);
+
+        assertEquals(7L, result.getVersion());
+        verify(repository).deleteMembersByGroupId(group.getId());
     }
 
     @Test
     public void editGroup_GroupDoesntExist_ThrowResourceNotFoundException() {
-        when(repository.findById(group.getId())).thenReturn(Optional.empty());
+        when(client.areUserIdsValid(requestDto.getMembers())).thenReturn(true);
+        when(repository.updateGroupIfVersionMatches(group.getId(), 3L, requestDto.getGroupName(), requestDto.getCurrency()))
+                .thenReturn(0);
+        when(repository.existsById(group.getId())).thenReturn(false);
 
-        ResourceNotFoundException ex = assertThrows(ResourceNotFoundException.class, () -> service.editGroup(group.getId(), requestDto));
+        ResourceNotFoundException ex = assertThrows(ResourceNotFoundException.class, () -> service.editGroup(group.getId(), 3L, requestDto));
 
         assertEquals("Group does't exist", ex.getMessage());
     }
 
+    @Test
+    public void editGroup_VersionIsStale_ThrowGroupVersionMismatchException() {
+        when(client.areUserIdsValid(requestDto.getMembers())).thenReturn(true);
+        when(repository.updateGroupIfVersionMatches(group.getId(), 3L, requestDto.getGroupName(), requestDto.getCurrency()))
+                .thenReturn(0);
+        when(repository.existsById(group.getId())).thenReturn(true);
+
+        GroupVersionMismatchException ex = assertThrows(GroupVersionMismatchException.class,
+                () -> service.editGroup(group.getId(), 3L, requestDto));
+
+        assertEquals("Group was modified by another request", ex.getMessage());
+        verify(repository, never()).deleteMembersByGroupId(anyLong());
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    public void editGroup_MembersAreNotValid_ThrowUsersIdsValidationExceptionWithoutTransaction() {
+        when(client.areUserIdsValid(requestDto.getMembers())).thenReturn(false);
+
+        UsersIdsValidationException exception = assertThrows(UsersIdsValidationException.class,
+                () -> service.editGroup(group.getId(), 3L, requestDto));
+
+        assertEquals("Group contains non existing users", exception.getMessage());
+        verifyNoInteractions(transactionManager, repository);
+    }
+
     @Test
     public void editGroup_GroupExistMembersAreNotValid_ThrowUsersIdsValidationException() {
         when(client.areUserIdsValid(requestDto.getMembers())).thenReturn(false);
@@ -132,17 +215,21 @@ class GroupServiceImplTest {
     @Test
     public void deleteGroupById_GroupWithIdExists_CallRepositoryDelete() {
         Long id = 1L;
-        when(repository.findById(id)).thenReturn(Optional.of(group));
+        when(repository.deleteGroupById(id)).thenReturn(1);
 
         service.deleteGroupById(id);
 
-        verify(repository).deleteById(id);
+        verify(balanceLedgerService).deleteBalances(id);
+        verify(balanceSnapshotService).deleteSnapshot(id);
+        verify(paymentRepository).deleteCoPayersByGroupId(id);
+        verify(paymentRepository).deleteAllByGroupId(id);
+        verify(repository).deleteMembersByGroupId(id);
     }
 
     @Test
     public void deleteGroupById_GroupWithIdDoesntExist_ThrowResourceNotFoundException() {
         Long id = 1L;
-        when(repository.findById(id)).thenReturn(Optional.empty());
+        when(repository.deleteGroupById(id)).thenReturn(0);
 
         ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () -> service.deleteGroupById(id));
 
@@ -153,7 +240,8 @@ class GroupServiceImplTest {
     public void getGroupMembersStatus_GroupDoesntExist_ThrowResourceNotFoundException() {
         Long requesterId = 1L;
 
-        when(repository.findById(group.getId())).thenReturn(Optional.empty());
+        when(repository.isMember(group.getId(), requesterId)).thenReturn(false);
+        when(repository.existsById(group.getId())).thenReturn(false);
 
         ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class,
                 () -> service.getGroupMembersStatus(group.getId(), requesterId));
@@ -163,13 +251,14 @@ class GroupServiceImplTest {
     @Test
     public void getGroupMembersStatus_RequesterIsNotOneOfMembers_ThrowUsersIdsValidationException() {
         Long requesterId = 1L;
-        group.setMembers(Lists.newArrayList(2L, 3L));
 
-        when(repository.findById(group.getId())).thenReturn(Optional.of(group));
+        when(repository.isMember(group.getId(), requesterId)).thenReturn(false);
+        when(repository.existsById(group.getId())).thenReturn(true);
 
         UsersIdsValidationException exception = assertThrows(UsersIdsValidationException.class,
                 () -> service.getGroupMembersStatus(group.getId(), requesterId));
         assertEquals("User is not a member of the group", exception.getMessage());
+        verify(repository, never()).findById(anyLong());
     }
 
     @Test
@@ -177,10 +266,11 @@ class GroupServiceImplTest {
         UserDto requester = UserDto.builder().id(1L).username("requester").build();
         UserDto member = UserDto.builder().id(2L).username("member").build();
 
-        group.setMembers(Lists.newArrayList(requester.getId(), member.getId()));
+        group.setMembers(LongIdSet.of(requester.getId(), member.getId()));
 
+        when(repository.isMember(group.getId(), 1L)).thenReturn(true);
         when(repository.findById(group.getId())).thenReturn(Optional.of(group));
-        when(client.getListOfUsersByIds(anyList())).thenReturn(Collections.singletonList(member));
+        when(client.getUsersOrLastKnownAsync(anyList())).thenReturn(completedFuture(new UserLookupResult(Collections.singletonList(member), false)));
 
         List<StatusResponseDto> result = service.getGroupMembersStatus(group.getId(), requester.getId());
 
@@ -189,7 +279,7 @@ class GroupServiceImplTest {
         assertEquals(group.getCurrency(), statusDto.getCurrency());
         assertEquals(member.getUsername(), statusDto.getUsername());
         assertEquals(member.getId(), statusDto.getUserId());
-        assertEquals(0.0, statusDto.getValue());
+        assertEquals(new BigDecimal("0.00"), statusDto.getValue());
     }
 
     @Test
@@ -198,10 +288,11 @@ class GroupServiceImplTest {
         UserDto member = UserDto.builder().id(2L).username("member").build();
         UserDto oldMember = UserDto.builder().id(3L).username("oldMember").build();
 
-        group.setMembers(Lists.newArrayList(requester.getId(), member.getId(), oldMember.getId()));
+        group.setMembers(LongIdSet.of(requester.getId(), member.getId(), oldMember.getId()));
 
+        when(repository.isMember(group.getId(), 1L)).thenReturn(true);
         when(repository.findById(group.getId())).thenReturn(Optional.of(group));
-        when(client.getListOfUsersByIds(anyList())).thenReturn(Collections.singletonList(member));
+        when(client.getUsersOrLastKnownAsync(anyList())).thenReturn(completedFuture(new UserLookupResult(Collections.singletonList(member), false)));
 
         List<StatusResponseDto> result = service.getGroupMembersStatus(group.getId(), requester.getId());
 
@@ -209,4 +300,283 @@ class GroupServiceImplTest {
         StatusResponseDto statusDto = result.get(0);
         assertEquals(member.getId(), statusDto.getUserId());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getGroupMembersStatus_LedgerHasBalanceForMember_ShouldReturnStatusWithLedgerValue() {
+        UserDto requester = UserDto.builder().id(1L).username("requester").build();
+        UserDto member = UserDto.builder().id(2L).username("member").build();
+
+        group.setMembers(LongIdSet.of(requester.getId(), member.getId()));
+
+        when(repository.isMember(group.getId(), 1L)).thenReturn(true);
+        when(repository.findById(group.getId())).thenReturn(Optional.of(group));
+        when(client.getUsersOrLastKnownAsync(anyList())).thenReturn(completedFuture(new UserLookupResult(Collections.singletonList(member), false)));
+        when(balanceLedgerService.getBalances(group.getId(), requester.getId()))
+                .thenReturn(Collections.singletonMap(member.getId(), 4250L));
+
+        List<StatusResponseDto> result = service.getGroupMembersStatus(group.getId(), requester.getId());
+
+        assertEquals(1, result.size());
+        assertEquals(new BigDecimal("42.50"), result.get(0).getValue());
+    }
+
+    @Test
+    public void getGroupMembersStatus_UsersAreStillLoading_ShouldReadLedgerWithoutWaitingForUsers() {
+        UserDto requester = UserDto.builder().id(1L).username("requester").build();
+        UserDto member = UserDto.builder().id(2L).username("member").build();
+        CompletableFuture<UserLookupResult> users = new CompletableFuture<>();
+
+        group.setMembers(LongIdSet.of(requester.getId(), member.getId()));
+
+        when(repository.isMember(group.getId(), 1L)).thenReturn(true);
+        when(repository.findById(group.getId())).thenReturn(Optional.of(group));
+        when(client.getUsersOrLastKnownAsync(anyList())).thenReturn(users);
+        when(balanceLedgerService.getBalances(group.getId(), requester.getId())).thenAnswer(invocation -> {
+            assertFalse(users.isDone());
+            users.complete(new UserLookupResult(Collections.singletonList(member), false));
+            return Collections.singletonMap(member.getId(), 100L);
+        });
+
+        List<StatusResponseDto> result = service.getGroupMembersStatus(group.getId(), requester.getId());
+
+        assertEquals(1, result.size());
+        assertEquals(new BigDecimal("1.00"), result.get(0).getValue());
+    }
+
+    @Test
+    public void getGroupMembersStatus_UsersAreLastKnown_ShouldReturnStatusFlaggedAsStale() {
+        UserDto member = UserDto.builder().id(2L).username("member").build();
+        group.setMembers(LongIdSet.of(1L, member.getId()));
+
+        when(repository.isMember(group.getId(), 1L)).thenReturn(true);
+        when(repository.findById(group.getId())).thenReturn(Optional.of(group));
+        when(client.getUsersOrLastKnownAsync(anyList()))
+                .thenReturn(completedFuture(new UserLookupResult(Collections.singletonList(member), true)));
+
+        List<StatusResponseDto> result = service.getGroupMembersStatus(group.getId(), 1L);
+
+        assertEquals(1, result.size());
+        assertEquals(member.getUsername(), result.get(0).getUsername());
+        assertTrue(result.get(0).isStale());
+    }
+
+    @Test
+    public void getGroupMembersStatus_UserServiceFails_ThrowUserServiceException() {
+        CompletableFuture<UserLookupResult> users = new CompletableFuture<>();
+        users.completeExceptionally(new UserServiceException("Server error during request to UserService"));
+        group.setMembers(LongIdSet.of(1L, 2L));
+
+        when(repository.isMember(group.getId(), 1L)).thenReturn(true);
+        when(repository.findById(group.getId())).thenReturn(Optional.of(group));
+        when(client.getUsersOrLastKnownAsync(anyList())).thenReturn(users);
+
+        UserServiceException exception = assertThrows(UserServiceException.class,
+                () -> service.getGroupMembersStatus(group.getId(), 1L));
+        assertEquals("Server error during request to UserService", exception.getMessage());
+    }
+
+    @Test
+    public void getSettlement_GroupDoesntExist_ThrowResourceNotFoundException() {
+        when(repository.findById(group.getId())).thenReturn(Optional.empty());
+
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class,
+                () -> service.getSettlement(group.getId()));
+        assertEquals("Group doesn't exist", exception.getMessage());
+    }
+
+    @Test
+    public void getSettlement_GroupHasPayments_ReturnTransfersSettlingAllMembers() {
+        group.setPayments(Arrays.asList(
+                Payment.builder()
+                        .creatorId(1L)
+                        .coPayers(LongIdSet.of(1L, 2L, 3L))
+                        .price(9000L)
+                        .build(),
+                Payment.builder()
+                        .creatorId(2L)
+                        .coPayers(LongIdSet.of(1L, 2L))
+                        .price(2000L)
+                        .build()
+        ));
+
+        when(repository.findById(group.getId())).thenReturn(Optional.of(group));
+        when(balanceSnapshotService.getBalanceHistory(group))
+                .thenReturn(new BalanceHistory(Collections.emptyList(), group.getPayments()));
+
+        SettlementResponseDto result = service.getSettlement(group.getId());
+
+        assertEquals(group.getId(), result.getGroupId());
+        assertEquals(group.getCurrency(), result.getCurrency());
+        assertEquals(2, result.getTransfers().size());
+        assertTrue(result.getTransfers().contains(new TransferDto(3L, 1L, new BigDecimal("30.00"))));
+        assertTrue(result.getTransfers().contains(new TransferDto(2L, 1L, new BigDecimal("20.00"))));
+    }
+
+    @Test
+    public void getGroupBalances_GroupDoesntExist_ThrowResourceNotFoundException() {
+        when(repository.findById(group.getId())).thenReturn(Optional.empty());
+
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class,
+                () -> service.getGroupBalances(group.getId()));
+        assertEquals("Group doesn't exist", exception.getMessage());
+    }
+
+    @Test
+    public void getGroupBalances_GroupHasPayments_ReturnMembersAndOnlyNonZeroDebts() {
+        UserDto first = UserDto.builder().id(1L).username("first").build();
+        UserDto second = UserDto.builder().id(2L).username("second").build();
+        UserDto third = UserDto.builder().id(3L).username("third").build();
+        group.setPayments(Arrays.asList(
+                Payment.builder()
+                        .creatorId(1L)
+                        .coPayers(LongIdSet.of(1L, 2L, 3L))
+                        .price(9000L)
+                        .build(),
+                Payment.builder()
+                        .creatorId(2L)
+                        .coPayers(LongIdSet.of(1L, 2L))
+                        .price(2000L)
+                        .build()
+        ));
+
+        when(repository.findById(group.getId())).thenReturn(Optional.of(group));
+        when(client.getUsersOrLastKnownAsync(LongIdSet.copyOf(group.getMembers()).toList()))
+                .thenReturn(completedFuture(new UserLookupResult(Arrays.asList(first, second, third), false)));
+        when(balanceSnapshotService.getBalanceHistory(group))
+                .thenReturn(new BalanceHistory(Collections.emptyList(), group.getPayments()));
+
+        GroupBalancesResponseDto result = service.getGroupBalances(group.getId());
+
+        assertEquals(group.getId(), result.getGroupId());
+        assertEquals(group.getCurrency(), result.getCurrency());
+        assertEquals(3, result.getMembers().size());
+        assertTrue(result.getMembers().contains(new MemberDto(2L, "second")));
+        assertEquals(2, result.getDebts().size());
+        assertTrue(result.getDebts().contains(new DebtDto(2L, 1L, new BigDecimal("20.00"))));
+        assertTrue(result.getDebts().contains(new DebtDto(3L, 1L, new BigDecimal("30.00"))));
+    }
+
+    @Test
+    public void getSettlement_GroupHasSnapshot_ReturnTransfersOfSnapshotAndNewerPayments() {
+        Payment newerPayment = Payment.builder()
+                .creatorId(2L)
+                .coPayers(LongIdSet.of(1L, 2L))
+                .price(2000L)
+                .build();
+        List<BalanceSnapshotEntry> entries = Arrays.asList(
+                new BalanceSnapshotEntry(group.getId(), 1L, 2L, 3000L),
+                new BalanceSnapshotEntry(group.getId(), 2L, 1L, -3000L),
+                new BalanceSnapshotEntry(group.getId(), 1L, 3L, 3000L),
+                new BalanceSnapshotEntry(group.getId(), 3L, 1L, -3000L));
+
+        when(repository.findById(group.getId())).thenReturn(Optional.of(group));
+        when(balanceSnapshotService.getBalanceHistory(group))
+                .thenReturn(new BalanceHistory(entries, Collections.singletonList(newerPayment)));
+
+        SettlementResponseDto result = service.getSettlement(group.getId());
+
+        assertEquals(2, result.getTransfers().size());
+        assertTrue(result.getTransfers().contains(new TransferDto(3L, 1L, new BigDecimal("30.00"))));
+        assertTrue(result.getTransfers().contains(new TransferDto(2L, 1L, new BigDecimal("20.00"))));
+    }
+
+    @Test
+    public void getGroupBalances_GroupHasSnapshotAndUserIsUnknown_ReturnDebtsOfEveryMember() {
+        UserDto first = UserDto.builder().id(1L).username("first").build();
+        UserDto second = UserDto.builder().id(2L).username("second").build();
+        Payment newerPayment = Payment.builder()
+                .creatorId(2L)
+                .coPayers(LongIdSet.of(1L, 2L))
+                .price(2000L)
+                .build();
+        List<BalanceSnapshotEntry> entries = Arrays.asList(
+                new BalanceSnapshotEntry(group.getId(), 1L, 2L, 3000L),
+                new BalanceSnapshotEntry(group.getId(), 2L, 1L, -3000L),
+                new BalanceSnapshotEntry(group.getId(), 1L, 3L, 3000L),
+                new BalanceSnapshotEntry(group.getId(), 3L, 1L, -3000L));
+
+        when(repository.findById(group.getId())).thenReturn(Optional.of(group));
+        when(client.getUsersOrLastKnownAsync(LongIdSet.copyOf(group.getMembers()).toList()))
+                .thenReturn(completedFuture(new UserLookupResult(Arrays.asList(first, second), false)));
+        when(balanceSnapshotService.getBalanceHistory(group))
+                .thenReturn(new BalanceHistory(entries, Collections.singletonList(newerPayment)));
+
+        GroupBalancesResponseDto result = service.getGroupBalances(group.getId());
+
+        assertEquals(2, result.getDebts().size());
+        assertTrue(result.getDebts().contains(new DebtDto(2L, 1L, new BigDecimal("20.00"))));
+        assertTrue(result.getDebts().contains(new DebtDto(3L, 1L, new BigDecimal("30.00"))));
+        assertTrue(result.getMembers().contains(new MemberDto(3L, null)));
+    }
+
+    @Test
+    public void getGroupBalances_UserServiceFails_ReturnDebtsWithoutUsernames() {
+        CompletableFuture<UserLookupResult> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new UserServiceException("Server error during request to UserService"));
+        group.setPayments(Collections.singletonList(Payment.builder()
+                .creatorId(1L)
+                .coPayers(LongIdSet.of(1L, 2L))
+                .price(2000L)
+                .build()));
+
+        when(repository.findById(group.getId())).thenReturn(Optional.of(group));
+        when(client.getUsersOrLastKnownAsync(LongIdSet.copyOf(group.getMembers()).toList())).thenReturn(failed);
+        when(balanceSnapshotService.getBalanceHistory(group))
+                .thenReturn(new BalanceHistory(Collections.emptyList(), group.getPayments()));
+
+        GroupBalancesResponseDto result = service.getGroupBalances(group.getId());
+
+        assertTrue(result.isStale());
+        assertEquals(Arrays.asList(new MemberDto(1L, null), new MemberDto(2L, null), new MemberDto(3L, null)),
+                result.getMembers());
+        assertEquals(Collections.singletonList(new DebtDto(2L, 1L, new BigDecimal("10.00"))), result.getDebts());
+    }
+
+    @Test
+    public void getUserBalances_UserIsNotMemberOfAnyGroup_ReturnEmptyListWithoutUserServiceCall() {
+        when(repository.findAllByMemberId(1L)).thenReturn(Collections.emptyList());
+
+        List<UserGroupBalanceDto> result = service.getUserBalances(1L);
+
+        assertTrue(result.isEmpty());
+        verify(client, never()).getUsersOrLastKnownAsync(anyList());
+    }
+
+    @Test
+    public void getUserBalances_UserIsMemberOfTwoGroups_ReturnBalancesOfEveryGroupWithOneUserServiceCall() {
+        Group otherGroup = Group.builder()
+                .id(22L)
+                .groupName("otherGroup")
+                .currency(Currency.USD)
+                .members(LongIdSet.of(1L, 4L))
+                .build();
+        Map<Long, Map<Long, Long>> balances = new HashMap<>();
+        Map<Long, Long> groupBalances = new HashMap<>();
+        groupBalances.put(2L, 3000L);
+        groupBalances.put(3L, -1000L);
+        balances.put(group.getId(), groupBalances);
+        balances.put(otherGroup.getId(), Collections.singletonMap(4L, -250L));
+
+        when(repository.findAllByMemberId(1L)).thenReturn(Arrays.asList(group, otherGroup));
+        when(client.getUsersOrLastKnownAsync(Arrays.asList(2L, 3L, 4L))).thenReturn(completedFuture(new UserLookupResult(Arrays.asList(
+                UserDto.builder().id(2L).username("second").build(),
+                UserDto.builder().id(3L).username("third").build(),
+                UserDto.builder().id(4L).username("fourth").build()), false)));
+        when(balanceLedgerService.getBalancesOfUser(1L)).thenReturn(balances);
+
+        List<UserGroupBalanceDto> result = service.getUserBalances(1L);
+
+        assertEquals(2, result.size());
+        UserGroupBalanceDto first = result.get(0);
+        assertEquals(group.getId(), first.getGroupId());
+        assertEquals(new BigDecimal("20.00"), first.getTotal());
+        assertEquals(2, first.getMembers().size());
+        assertEquals(new BigDecimal("30.00"), first.getMembers().get(0).getValue());
+        assertEquals("third", first.getMembers().get(1).getUsername());
+        UserGroupBalanceDto second = result.get(1);
+        assertEquals(Currency.USD, second.getCurrency());
+        assertEquals(new BigDecimal("-2.50"), second.getTotal());
+        assertEquals(Long.valueOf(4L), second.getMembers().get(0).getUserId());
+        verify(client).getUsersOrLastKnownAsync(anyList());
+    }
+}
@@ -0,0 +1,31 @@
+package com.eleks.groupservice.service;
+
+import com.eleks.groupservice.exception.InvalidPageRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentCursorTest {
+
+    @Test
+    void decode_EncodedCursor_ReturnSameTimestampAndId() {
+        PaymentCursor cursor = new PaymentCursor(Instant.parse("2019-01-01T10:15:30.123456Z"), 42L);
+
+        assertEquals(cursor, PaymentCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void encode_Cursor_ReturnUrlSafeString() {
+        String encoded = new PaymentCursor(Instant.parse("2019-01-01T10:15:30Z"), 42L).encode();
+
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    void decode_NotACursor_ThrowInvalidPageRequestException() {
+        assertThrows(InvalidPageRequestException.class, () -> PaymentCursor.decode("not a cursor"));
+        assertThrows(InvalidPageRequestException.class, () -> PaymentCursor.decode("bm8tc2VwYXJhdG9y"));
+    }
+}
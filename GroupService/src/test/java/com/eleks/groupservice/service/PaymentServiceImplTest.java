@@ -2,9 +2,14 @@ package com.eleks.groupservice.service;
 
 import com.eleks.groupservice.domain.Currency;
 import com.eleks.groupservice.domain.Group;
+import com.eleks.groupservice.domain.LongIdSet;
 import com.eleks.groupservice.domain.Payment;
+import com.eleks.groupservice.dto.PaymentBatchResponseDto;
 import com.eleks.groupservice.dto.PaymentRequestDto;
 import com.eleks.groupservice.dto.PaymentResponseDto;
+import com.eleks.groupservice.dto.PaymentsPageResponseDto;
+import com.eleks.groupservice.exception.InvalidBatchRequestException;
+import com.eleks.groupservice.exception.InvalidPageRequestException;
 import com.eleks.groupservice.exception.ResourceNotFoundException;
 import com.eleks.groupservice.exception.UsersIdsValidationException;
 import com.eleks.groupservice.repository.GroupRepository;
@@ -13,17 +18,29 @@ import com.google.common.collect.Lists;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
 
+import javax.persistence.EntityManager;
+import javax.validation.Validation;
+import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -36,7 +53,15 @@ class PaymentServiceImplTest {
     @Mock
     private PaymentRepository paymentRepo;
 
-    @InjectMocks
+    @Mock
+    private BalanceLedgerService balanceLedgerService;
+
+    @Mock
+    private BalanceSnapshotService balanceSnapshotService;
+
+    @Mock
+    private EntityManager entityManager;
+
     private PaymentServiceImpl service;
 
     private PaymentRequestDto paymentRequest;
@@ -49,15 +74,18 @@ class PaymentServiceImplTest {
 
     @BeforeEach
     public void setUp() {
+        service = new PaymentServiceImpl(groupRepo, paymentRepo, balanceLedgerService, balanceSnapshotService,
+                entityManager, Validation.buildDefaultValidatorFactory().getValidator(), 2);
+
         paymentRequest = PaymentRequestDto.builder()
                 .paymentDescription("paymentDescription")
                 .coPayers(Lists.newArrayList(1L, 2L))
-                .price(100D)
+                .price(new BigDecimal("100.00"))
                 .build();
 
         group = Group.builder()
                 .id(1L)
-                .members(Lists.newArrayList(1L, 2L))
+                .members(LongIdSet.of(1L, 2L))
                 .currency(Currency.UAH)
                 .groupName("groupName")
                 .build();
@@ -66,8 +94,8 @@ class PaymentServiceImplTest {
                 .id(1L)
                 .creatorId(creatorId)
                 .group(group)
-                .price(paymentRequest.getPrice())
-                .coPayers(paymentRequest.getCoPayers())
+                .price(10000L)
+                .coPayers(LongIdSet.copyOf(paymentRequest.getCoPayers()))
                 .paymentDescription(paymentRequest.getPaymentDescription())
                 .timestamp(Instant.now())
                 .build();
@@ -75,12 +103,15 @@ class PaymentServiceImplTest {
 
     @Test
     public void createPayment_GroupExistsCoPayersAreValid_SaveAndReturnResponseDto() {
+        when(groupRepo.lockById(group.getId())).thenReturn(Optional.of(group.getId()));
         when(groupRepo.findById(group.getId())).thenReturn(Optional.of(group));
 
         when(paymentRepo.save(any(Payment.class))).thenReturn(payment);
 
         PaymentResponseDto response = service.createPayment(group.getId(), creatorId, paymentRequest);
 
+        verify(balanceLedgerService).applyPayment(payment);
+        verify(balanceSnapshotService).invalidateSnapshot(payment);
         assertNotNull(response);
         assertNotNull(response.getId());
         assertNotNull(response.getGroupId());
@@ -93,7 +124,7 @@ class PaymentServiceImplTest {
 
     @Test
     public void createPayment_GroupDoesntExist_ThrowResourceNotFoundException() {
-        when(groupRepo.findById(group.getId())).thenReturn(Optional.empty());
+        when(groupRepo.lockById(group.getId())).thenReturn(Optional.empty());
 
         ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class,
                 () -> service.createPayment(group.getId(), creatorId, paymentRequest));
@@ -103,6 +134,7 @@ class PaymentServiceImplTest {
 
     @Test
     public void createPayment_CoPayersIdsNotFromRequestedGroup_ThrowUsersIdsValidationException() {
+        when(groupRepo.lockById(group.getId())).thenReturn(Optional.of(group.getId()));
         when(groupRepo.findById(group.getId())).thenReturn(Optional.of(group));
         paymentRequest.setCoPayers(Lists.newArrayList(42L, 24L));
 
@@ -114,29 +146,26 @@ class PaymentServiceImplTest {
 
     @Test
     public void getPayment_GroupAndPaymentExists_ShouldReturnResponseModel() {
-        group.getPayments().add(payment);
-
-        when(groupRepo.findById(group.getId())).thenReturn(Optional.of(group));
+        when(paymentRepo.findByIdAndGroupId(payment.getId(), group.getId())).thenReturn(Optional.of(payment));
 
         Optional<PaymentResponseDto> result = service.getPayment(group.getId(), payment.getId());
 
         assertTrue(result.isPresent());
+        assertEquals(payment.getId(), result.get().getId());
     }
 
     @Test
     public void getPayment_GroupDoesntExist_ShouldReturnEmptyOptional() {
-        when(groupRepo.findById(group.getId())).thenReturn(Optional.empty());
+        when(paymentRepo.findByIdAndGroupId(payment.getId(), 2L)).thenReturn(Optional.empty());
 
-        Optional<PaymentResponseDto> result = service.getPayment(group.getId(), payment.getId());
+        Optional<PaymentResponseDto> result = service.getPayment(2L, payment.getId());
 
         assertFalse(result.isPresent());
     }
 
     @Test
     public void getPayment_GroupExistsButPaymentIsNot_ShouldReturnEmptyOptional() {
-        group.setPayments(Collections.emptyList());
-
-        when(groupRepo.findById(group.getId())).thenReturn(Optional.of(group));
+        when(paymentRepo.findByIdAndGroupId(payment.getId(), group.getId())).thenReturn(Optional.empty());
 
         Optional<PaymentResponseDto> result = service.getPayment(group.getId(), payment.getId());
 
@@ -147,7 +176,7 @@ class PaymentServiceImplTest {
     public void getPayments_GroupExistAndHasPayments_ReturnListOfPayments() {
         group.getPayments().add(payment);
 
-        when(groupRepo.findById(group.getId())).thenReturn(Optional.of(group));
+        when(groupRepo.findWithPaymentsById(group.getId())).thenReturn(Optional.of(group));
 
         Optional<List<PaymentResponseDto>> result = service.getPayments(group.getId());
 
@@ -159,7 +188,7 @@ class PaymentServiceImplTest {
     public void getPayments_GroupExistButWithoutPayments_ReturnEmptyList() {
         group.setPayments(Collections.emptyList());
 
-        when(groupRepo.findById(group.getId())).thenReturn(Optional.of(group));
+        when(groupRepo.findWithPaymentsById(group.getId())).thenReturn(Optional.of(group));
 
         Optional<List<PaymentResponseDto>> result = service.getPayments(group.getId());
 
@@ -169,7 +198,7 @@ class PaymentServiceImplTest {
 
     @Test
     public void getPayments_GroupDoesntExist_ReturnEmptyOptional() {
-        when(groupRepo.findById(group.getId())).thenReturn(Optional.empty());
+        when(groupRepo.findWithPaymentsById(group.getId())).thenReturn(Optional.empty());
 
         Optional<List<PaymentResponseDto>> result = service.getPayments(group.getId());
 
@@ -180,16 +209,36 @@ class PaymentServiceImplTest {
     public void deletePayment_GroupAndPaymentExist_ShouldCallDelete() {
         payment.setGroup(group);
 
-        when(paymentRepo.findById(payment.getId())).thenReturn(Optional.of(payment));
+        when(groupRepo.lockById(group.getId())).thenReturn(Optional.of(group.getId()));
+        when(paymentRepo.findByIdAndGroupId(payment.getId(), group.getId())).thenReturn(Optional.of(payment));
+        when(paymentRepo.deleteByIdAndGroupId(payment.getId(), group.getId())).thenReturn(1);
 
         service.deletePayment(group.getId(), payment.getId());
 
-        verify(paymentRepo).deleteById(payment.getId());
+        InOrder inOrder = inOrder(groupRepo, paymentRepo);
+        inOrder.verify(groupRepo).lockById(group.getId());
+        inOrder.verify(paymentRepo).findByIdAndGroupId(payment.getId(), group.getId());
+        verify(balanceLedgerService).revertPayment(payment);
+        verify(balanceSnapshotService).invalidateSnapshot(payment);
+        verify(paymentRepo).deleteCoPayersByPaymentId(payment.getId());
+    }
+
+    @Test
+    public void deletePayment_PaymentDeletedConcurrently_ShouldThrowResourceNotFoundException() {
+        when(groupRepo.lockById(group.getId())).thenReturn(Optional.of(group.getId()));
+        when(paymentRepo.findByIdAndGroupId(payment.getId(), group.getId())).thenReturn(Optional.of(payment));
+        when(paymentRepo.deleteByIdAndGroupId(payment.getId(), group.getId())).thenReturn(0);
+
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class,
+                () -> service.deletePayment(group.getId(), payment.getId()));
+
+        assertEquals("Payment doesn't exists", exception.getMessage());
     }
 
     @Test
     public void deletePayment_PaymentDoesntExist_ShouldThrowResourceNotFoundException() {
-        when(paymentRepo.findById(payment.getId())).thenReturn(Optional.empty());
+        when(groupRepo.lockById(group.getId())).thenReturn(Optional.of(group.getId()));
+        when(paymentRepo.findByIdAndGroupId(payment.getId(), group.getId())).thenReturn(Optional.empty());
 
         ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class,
                 () -> service.deletePayment(group.getId(), payment.getId()));
@@ -197,11 +246,23 @@ class PaymentServiceImplTest {
         assertEquals("Payment doesn't exists", exception.getMessage());
     }
 
+    @Test
+    public void deletePayment_GroupDoesntExist_ShouldThrowResourceNotFoundException() {
+        when(groupRepo.lockById(group.getId())).thenReturn(Optional.empty());
+
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class,
+                () -> service.deletePayment(group.getId(), payment.getId()));
+
+        assertEquals("Payment doesn't exists", exception.getMessage());
+        verify(paymentRepo, never()).findByIdAndGroupId(any(), any());
+    }
+
     @Test
     public void deletePayment_PaymentExistButItBelongsToAnotherGroup_ShouldThrowResourceNotFoundException() {
         payment.setGroup(group);
 
-        when(paymentRepo.findById(payment.getId())).thenReturn(Optional.of(payment));
+        when(groupRepo.lockById(222L)).thenReturn(Optional.of(222L));
+        when(paymentRepo.findByIdAndGroupId(payment.getId(), 222L)).thenReturn(Optional.empty());
 
         ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class,
                 () -> service.deletePayment(222L, payment.getId()));
@@ -209,4 +270,144 @@ class PaymentServiceImplTest {
         assertEquals("Payment doesn't exists", exception.getMessage());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void getPaymentsPage_MorePaymentsThanLimit_ReturnFirstPageAndCursorOfItsLastPayment() {
+        Payment second = Payment.builder()
+                .id(2L)
+                .creatorId(creatorId)
+                .group(group)
+                .price(500L)
+                .coPayers(LongIdSet.of(1L, 2L))
+                .timestamp(payment.getTimestamp().plusSeconds(1))
+                .build();
+
+        when(groupRepo.existsById(group.getId())).thenReturn(true);
+        when(paymentRepo.findPageIdsByGroupId(group.getId(), PageRequest.of(0, 3))).thenReturn(Arrays.asList(1L, 2L, 3L));
+        when(paymentRepo.findAllWithCoPayersByIdIn(Arrays.asList(1L, 2L))).thenReturn(Arrays.asList(payment, second));
+
+        PaymentsPageResponseDto page = service.getPaymentsPage(group.getId(), null, 2).get();
+
+        assertEquals(2, page.getPayments().size());
+        assertEquals(PaymentCursor.of(second), PaymentCursor.decode(page.getNextCursor()));
+    }
+
+    @Test
+    public void getPaymentsPage_LastPageAfterCursor_ReturnPaymentsWithoutNextCursor() {
+        PaymentCursor cursor = new PaymentCursor(Instant.parse("2019-01-01T00:00:00Z"), 7L);
+
+        when(groupRepo.existsById(group.getId())).thenReturn(true);
+        when(paymentRepo.findPageIdsByGroupIdAfter(group.getId(), cursor.getTimestamp(), 7L, PageRequest.of(0, 3)))
+                .thenReturn(Collections.singletonList(1L));
+        when(paymentRepo.findAllWithCoPayersByIdIn(Collections.singletonList(1L))).thenReturn(Collections.singletonList(payment));
+
+        PaymentsPageResponseDto page = service.getPaymentsPage(group.getId(), cursor.encode(), 2).get();
+
+        assertEquals(1, page.getPayments().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void getPaymentsPage_GroupDoesntExist_ReturnEmptyOptional() {
+        when(groupRepo.existsById(group.getId())).thenReturn(false);
+
+        assertFalse(service.getPaymentsPage(group.getId(), null, 10).isPresent());
+    }
+
+    @Test
+    public void getPaymentsPage_LimitIsTooBig_ThrowInvalidPageRequestException() {
+        InvalidPageRequestException exception = assertThrows(InvalidPageRequestException.class,
+                () -> service.getPaymentsPage(group.getId(), null, PaymentServiceImpl.MAX_PAGE_SIZE + 1));
+
+        assertEquals("Limit must be between 1 and " + PaymentServiceImpl.MAX_PAGE_SIZE, exception.getMessage());
+    }
+
+    @Test
+    public void streamPayments_GroupHasPayments_PassEveryPaymentAndDetachIt() {
+        List<PaymentResponseDto> streamed = new ArrayList<>();
+
+        when(groupRepo.existsById(group.getId())).thenReturn(true);
+        when(paymentRepo.streamAllByGroupId(group.getId())).thenReturn(Stream.of(payment));
+
+        service.streamPayments(group.getId(), streamed::add);
+
+        assertEquals(1, streamed.size());
+        assertEquals(payment.getId(), streamed.get(0).getId());
+        verify(entityManager).detach(payment);
+    }
+
+    @Test
+    public void streamPayments_GroupDoesntExist_ThrowResourceNotFoundException() {
+        when(groupRepo.existsById(group.getId())).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class, () -> service.streamPayments(group.getId(), dto -> { }));
+        verify(paymentRepo, never()).streamAllByGroupId(any());
+    }
+
+    @Test
+    public void createPayments_SomeItemsAreInvalid_SaveValidOnesInBatchesAndReportEveryItem() {
+        when(groupRepo.lockById(group.getId())).thenReturn(Optional.of(group.getId()));
+        when(groupRepo.findById(group.getId())).thenReturn(Optional.of(group));
+        PaymentRequestDto notMember = PaymentRequestDto.builder()
+                .paymentDescription("notMember")
+                .coPayers(Lists.newArrayList(1L, 3L))
+                .price(new BigDecimal("10.00"))
+                .build();
+        PaymentRequestDto withoutPrice = PaymentRequestDto.builder()
+                .paymentDescription("withoutPrice")
+                .coPayers(Lists.newArrayList(1L, 2L))
+                .build();
+
+        PaymentBatchResponseDto response = service.createPayments(group.getId(), creatorId,
+                Arrays.asList(paymentRequest, notMember, paymentRequest, withoutPrice, paymentRequest));
+
+        assertEquals(3, response.getCreated());
+        assertEquals(2, response.getRejected());
+        assertEquals(5, response.getResults().size());
+        assertTrue(response.getResults().get(0).isCreated());
+        assertEquals(paymentRequest.getPaymentDescription(), response.getResults().get(0).getPayment().getPaymentDescription());
+        assertFalse(response.getResults().get(1).isCreated());
+        assertEquals(Collections.singletonList("Co-payers are not members of group"), response.getResults().get(1).getErrors());
+        assertEquals(Collections.singletonList("price is required"), response.getResults().get(3).getErrors());
+        assertEquals(4, response.getResults().get(4).getIndex());
+        verify(paymentRepo, times(2)).saveAll(any());
+        verify(entityManager, times(2)).flush();
+        verify(entityManager, times(2)).clear();
+        verify(balanceLedgerService).applyPayments(any(), any());
+        verify(balanceSnapshotService).invalidateSnapshot(eq(group.getId()), anyList());
+    }
+
+    @Test
+    public void createPayments_AllItemsAreInvalid_SaveNothing() {
+        when(groupRepo.lockById(group.getId())).thenReturn(Optional.of(group.getId()));
+        when(groupRepo.findById(group.getId())).thenReturn(Optional.of(group));
+        paymentRequest.setCoPayers(Lists.newArrayList(5L));
+
+        PaymentBatchResponseDto response = service.createPayments(group.getId(), creatorId,
+                Collections.singletonList(paymentRequest));
+
+        assertEquals(0, response.getCreated());
+        assertEquals(1, response.getRejected());
+        verify(paymentRepo, never()).saveAll(any());
+        verify(balanceLedgerService, never()).applyPayments(any(), any());
+        verify(balanceSnapshotService, never()).invalidateSnapshot(any(), anyList());
+    }
+
+    @Test
+    public void createPayments_GroupDoesntExist_ThrowResourceNotFoundException() {
+        when(groupRepo.lockById(group.getId())).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> service.createPayments(group.getId(), creatorId, Collections.singletonList(paymentRequest)));
+    }
+
+    @Test
+    public void createPayments_BatchIsTooBig_ThrowInvalidBatchRequestException() {
+        List<PaymentRequestDto> requests = Collections.nCopies(PaymentServiceImpl.MAX_BATCH_SIZE + 1, paymentRequest);
+
+        InvalidBatchRequestException exception = assertThrows(InvalidBatchRequestException.class,
+                () -> service.createPayments(group.getId(), creatorId, requests));
+
+        assertEquals("Batch must contain between 1 and 5000 payments", exception.getMessage());
+        verify(groupRepo, never()).findById(any());
+    }
+}
@@ -1,13 +1,17 @@
 package com.eleks.groupservice.service;
 
+import com.eleks.groupservice.domain.LongIdSet;
 import com.eleks.groupservice.domain.Payment;
-import org.assertj.core.util.Lists;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -17,17 +21,17 @@ class PaymentsCalculationHelperTest {
     @Test
     public void calculateValues_NoOtherMembers_ReturnEmptyValuesMap() {
         List<Payment> payments = Collections.singletonList(Payment.builder().build());
-        Map<Long, Double> values = PaymentsCalculationHelper.calculateValues(1L, payments, Collections.emptyList());
+        Map<Long, Long> values = PaymentsCalculationHelper.calculateValues(1L, payments, Collections.emptyList());
 
         assertTrue(values.isEmpty());
     }
 
     @Test
     public void calculateValues_NoPayments_ReturnValuesMapWithOnlyZeros() {
-        Map<Long, Double> values = PaymentsCalculationHelper.calculateValues(1L, Collections.emptyList(), Arrays.asList(1L, 2L));
+        Map<Long, Long> values = PaymentsCalculationHelper.calculateValues(1L, Collections.emptyList(), Arrays.asList(1L, 2L));
 
-        for (Double value : values.values()) {
-            assertEquals(0D, value);
+        for (Long value : values.values()) {
+            assertEquals(0L, value.longValue());
         }
     }
 
@@ -37,20 +41,20 @@ class PaymentsCalculationHelperTest {
         List<Payment> payments = Arrays.asList(
                 Payment.builder()
                         .creatorId(2L)
-                        .coPayers(Lists.newArrayList(2L, 3L))
-                        .price(100D)
+                        .coPayers(LongIdSet.of(2L, 3L))
+                        .price(10000L)
                         .build(),
                 Payment.builder()
                         .creatorId(3L)
-                        .coPayers(Lists.newArrayList(2L, 3L))
-                        .price(50D)
+                        .coPayers(LongIdSet.of(2L, 3L))
+                        .price(5000L)
                         .build()
         );
 
-        Map<Long, Double> values = PaymentsCalculationHelper.calculateValues(1L, payments, otherMembers);
+        Map<Long, Long> values = PaymentsCalculationHelper.calculateValues(1L, payments, otherMembers);
 
-        for (Double value : values.values()) {
-            assertEquals(0D, value);
+        for (Long value : values.values()) {
+            assertEquals(0L, value.longValue());
         }
     }
 
@@ -59,15 +63,15 @@ class PaymentsCalculationHelperTest {
         List<Long> otherMembers = Arrays.asList(2L, 3L);
         List<Payment> payments = Collections.singletonList(Payment.builder()
                 .creatorId(1L)
-                .coPayers(Lists.newArrayList(1L, 2L, 3L))
-                .price(120.12)
+                .coPayers(LongIdSet.of(1L, 2L, 3L))
+                .price(12012L)
                 .build());
 
-        Map<Long, Double> values = PaymentsCalculationHelper.calculateValues(1L, payments, otherMembers);
+        Map<Long, Long> values = PaymentsCalculationHelper.calculateValues(1L, payments, otherMembers);
 
         assertEquals(2, values.size());
-        assertEquals(40.04, values.get(2L));
-        assertEquals(40.04, values.get(3L));
+        assertEquals(4004L, values.get(2L).longValue());
+        assertEquals(4004L, values.get(3L).longValue());
     }
 
     @Test
@@ -75,15 +79,15 @@ class PaymentsCalculationHelperTest {
         List<Long> otherMembers = Arrays.asList(2L, 3L);
         List<Payment> payments = Collections.singletonList(Payment.builder()
                 .creatorId(2L)
-                .coPayers(Lists.newArrayList(1L, 2L, 3L))
-                .price(120.12)
+                .coPayers(LongIdSet.of(1L, 2L, 3L))
+                .price(12012L)
                 .build());
 
-        Map<Long, Double> values = PaymentsCalculationHelper.calculateValues(1L, payments, otherMembers);
+        Map<Long, Long> values = PaymentsCalculationHelper.calculateValues(1L, payments, otherMembers);
 
         assertEquals(2, values.size());
-        assertEquals(-40.04, values.get(2L));
-        assertEquals(0D, values.get(3L));
+        assertEquals(-4004L, values.get(2L).longValue());
+        assertEquals(0L, values.get(3L).longValue());
     }
 
     @Test
@@ -92,21 +96,21 @@ class PaymentsCalculationHelperTest {
         List<Payment> payments = Arrays.asList(
                 Payment.builder()
                         .creatorId(1L)
-                        .coPayers(Lists.newArrayList(1L, 2L))
-                        .price(120D)
+                        .coPayers(LongIdSet.of(1L, 2L))
+                        .price(12000L)
                         .build(),
                 Payment.builder()
                         .creatorId(1L)
-                        .coPayers(Lists.newArrayList(1L, 2L, 3L))
-                        .price(60D)
+                        .coPayers(LongIdSet.of(1L, 2L, 3L))
+                        .price(6000L)
                         .build()
         );
 
-        Map<Long, Double> values = PaymentsCalculationHelper.calculateValues(1L, payments, otherMembers);
+        Map<Long, Long> values = PaymentsCalculationHelper.calculateValues(1L, payments, otherMembers);
 
         assertEquals(2, values.size());
-        assertEquals(80D, values.get(2L));
-        assertEquals(20D, values.get(3L));
+        assertEquals(8000L, values.get(2L).longValue());
+        assertEquals(2000L, values.get(3L).longValue());
     }
 
     @Test
@@ -115,21 +119,21 @@ class PaymentsCalculationHelperTest {
         List<Payment> payments = Arrays.asList(
                 Payment.builder()
                         .creatorId(2L)
-                        .coPayers(Lists.newArrayList(1L, 2L))
-                        .price(120D)
+                        .coPayers(LongIdSet.of(1L, 2L))
+                        .price(12000L)
                         .build(),
                 Payment.builder()
                         .creatorId(2L)
-                        .coPayers(Lists.newArrayList(1L, 2L, 3L))
-                        .price(60D)
+                        .coPayers(LongIdSet.of(1L, 2L, 3L))
+                        .price(6000L)
                         .build()
         );
 
-        Map<Long, Double> values = PaymentsCalculationHelper.calculateValues(1L, payments, otherMembers);
+        Map<Long, Long> values = PaymentsCalculationHelper.calculateValues(1L, payments, otherMembers);
 
         assertEquals(2, values.size());
-        assertEquals(-80D, values.get(2L));
-        assertEquals(0D, values.get(3L));
+        assertEquals(-8000L, values.get(2L).longValue());
+        assertEquals(0L, values.get(3L).longValue());
     }
 
     @Test
@@ -138,20 +142,241 @@ class PaymentsCalculationHelperTest {
         List<Payment> payments = Arrays.asList(
                 Payment.builder()
                         .creatorId(2L)
-                        .coPayers(Lists.newArrayList(1L, 2L))
-                        .price(120D)
+                        .coPayers(LongIdSet.of(1L, 2L))
+                        .price(12000L)
                         .build(),
                 Payment.builder()
                         .creatorId(1L)
-                        .coPayers(Lists.newArrayList(1L, 2L, 3L))
-                        .price(60D)
+                        .coPayers(LongIdSet.of(1L, 2L, 3L))
+                        .price(6000L)
                         .build()
         );
 
-        Map<Long, Double> values = PaymentsCalculationHelper.calculateValues(1L, payments, otherMembers);
+        Map<Long, Long> values = PaymentsCalculationHelper.calculateValues(1L, payments, otherMembers);
 
         assertEquals(2, values.size());
-        assertEquals(-40D, values.get(2L));
-        assertEquals(20D, values.get(3L));
+        assertEquals(-4000L, values.get(2L).longValue());
+        assertEquals(2000L, values.get(3L).longValue());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void calculateValues_PriceNotDivisibleByCoPayersCount_GiveRemainderToLowestCoPayersIds() {
+        List<Long> otherMembers = Arrays.asList(2L, 3L);
+        List<Payment> payments = Collections.singletonList(Payment.builder()
+                .creatorId(3L)
+                .coPayers(LongIdSet.of(2L, 1L, 3L))
+                .price(10001L)
+                .build());
+
+        Map<Long, Long> values = PaymentsCalculationHelper.calculateValues(1L, payments, otherMembers);
+
+        assertEquals(0L, values.get(2L).longValue());
+        assertEquals(-3334L, values.get(3L).longValue());
+    }
+
+    @Test
+    public void calculateValues_OnePaymentWithDuplicatedCoPayer_CountDuplicatedCoPayerOnce() {
+        List<Long> otherMembers = Arrays.asList(2L, 3L);
+        List<Payment> payments = Collections.singletonList(Payment.builder()
+                .creatorId(1L)
+                .coPayers(LongIdSet.of(1L, 2L, 2L, 3L))
+                .price(10000L)
+                .build());
+
+        Map<Long, Long> values = PaymentsCalculationHelper.calculateValues(1L, payments, otherMembers);
+
+        assertEquals(calculateValuesWithNestedLoop(1L, payments, otherMembers), values);
+        assertEquals(3333L, values.get(2L).longValue());
+    }
+
+    @Test
+    public void calculateValues_RandomPaymentsHistory_ReturnSameValuesAsNestedLoop() {
+        Random random = new Random(42L);
+        for (int round = 0; round < 50; round++) {
+            int membersCount = 2 + random.nextInt(15);
+            List<Payment> payments = generatePayments(random, membersCount, random.nextInt(500));
+            Long requesterId = 1L + random.nextInt(membersCount);
+            List<Long> otherMembers = new ArrayList<>();
+            for (long memberId = 1; memberId <= membersCount; memberId++) {
+                if (memberId != requesterId) {
+                    otherMembers.add(memberId);
+                }
+            }
+
+            Map<Long, Long> expected = calculateValuesWithNestedLoop(requesterId, payments, otherMembers);
+            Map<Long, Long> actual = PaymentsCalculationHelper.calculateValues(requesterId, payments, otherMembers);
+
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void calculateDebtsToCreator_CreatorIsCoPayer_ReturnShareOfEveryOtherCoPayer() {
+        Payment payment = Payment.builder()
+                .creatorId(1L)
+                .coPayers(LongIdSet.of(1L, 2L, 3L))
+                .price(10000L)
+                .build();
+
+        Map<Long, Long> debts = PaymentsCalculationHelper.calculateDebtsToCreator(payment);
+
+        assertEquals(2, debts.size());
+        assertEquals(3333L, debts.get(2L).longValue());
+        assertEquals(3333L, debts.get(3L).longValue());
+    }
+
+    @Test
+    public void calculateDebtsToCreator_CreatorIsNotCoPayer_ReturnEmptyDebtsMap() {
+        Payment payment = Payment.builder()
+                .creatorId(1L)
+                .coPayers(LongIdSet.of(2L, 3L))
+                .price(10000L)
+                .build();
+
+        Map<Long, Long> debts = PaymentsCalculationHelper.calculateDebtsToCreator(payment);
+
+        assertTrue(debts.isEmpty());
+    }
+
+    @Test
+    public void calculateNetPositions_TwoPayments_ReturnPositionsSummingToZero() {
+        List<Payment> payments = Arrays.asList(
+                Payment.builder()
+                        .creatorId(1L)
+                        .coPayers(LongIdSet.of(1L, 2L, 3L))
+                        .price(9000L)
+                        .build(),
+                Payment.builder()
+                        .creatorId(2L)
+                        .coPayers(LongIdSet.of(1L, 2L))
+                        .price(2000L)
+                        .build()
+        );
+
+        Map<Long, Long> positions = PaymentsCalculationHelper.calculateNetPositions(payments);
+
+        assertEquals(3, positions.size());
+        assertEquals(5000L, positions.get(1L).longValue());
+        assertEquals(-2000L, positions.get(2L).longValue());
+        assertEquals(-3000L, positions.get(3L).longValue());
+    }
+
+    @Test
+    public void calculateBalanceMatrix_TwoPayments_ReturnAntisymmetricPairwiseBalances() {
+        List<Payment> payments = Arrays.asList(
+                Payment.builder()
+                        .creatorId(1L)
+                        .coPayers(LongIdSet.of(1L, 2L, 3L))
+                        .price(9000L)
+                        .build(),
+                Payment.builder()
+                        .creatorId(2L)
+                        .coPayers(LongIdSet.of(1L, 2L))
+                        .price(2000L)
+                        .build()
+        );
+
+        BalanceMatrix matrix = PaymentsCalculationHelper.calculateBalanceMatrix(payments, Arrays.asList(1L, 2L, 3L));
+
+        assertEquals(3, matrix.size());
+        assertEquals(2000L, matrix.get(0, 1));
+        assertEquals(-2000L, matrix.get(1, 0));
+        assertEquals(3000L, matrix.get(0, 2));
+        assertEquals(-3000L, matrix.get(2, 0));
+        assertEquals(0L, matrix.get(1, 2));
+        assertEquals(0L, matrix.get(1, 1));
+    }
+
+    @Test
+    public void calculateBalanceMatrix_RandomPaymentsHistory_RowsMatchValuesOfEveryRequester() {
+        Random random = new Random(7L);
+        int membersCount = 12;
+        List<Payment> payments = generatePayments(random, membersCount, 1000);
+        List<Long> members = new ArrayList<>();
+        for (long memberId = 1; memberId <= membersCount; memberId++) {
+            members.add(memberId);
+        }
+
+        BalanceMatrix matrix = PaymentsCalculationHelper.calculateBalanceMatrix(payments, members);
+
+        for (int i = 0; i < matrix.size(); i++) {
+            Long requesterId = matrix.getMemberId(i);
+            List<Long> otherMembers = new ArrayList<>(members);
+            otherMembers.remove(requesterId);
+            Map<Long, Long> values = PaymentsCalculationHelper.calculateValues(requesterId, payments, otherMembers);
+            for (int j = 0; j < matrix.size(); j++) {
+                if (i != j) {
+                    assertEquals(values.get(matrix.getMemberId(j)).longValue(), matrix.get(i, j));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void calculateInParallel_PaymentsAboveThreshold_ReturnSameResultsAsSequentialCalculation() {
+        Random random = new Random(11L);
+        int membersCount = 20;
+        List<Payment> payments = generatePayments(random, membersCount, 10000);
+        List<Long> members = new ArrayList<>();
+        for (long memberId = 1; memberId <= membersCount; memberId++) {
+            members.add(memberId);
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        try {
+            assertEquals(PaymentsCalculationHelper.calculateNetPositions(payments),
+                    PaymentsCalculationHelper.calculateNetPositions(payments, pool, 1));
+
+            BalanceMatrix sequential = PaymentsCalculationHelper.calculateBalanceMatrix(payments, members);
+            BalanceMatrix parallel = PaymentsCalculationHelper.calculateBalanceMatrix(payments, members, pool, 1);
+            for (int i = 0; i < membersCount; i++) {
+                for (int j = 0; j < membersCount; j++) {
+                    assertEquals(sequential.get(i, j), parallel.get(i, j));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static List<Payment> generatePayments(Random random, int membersCount, int paymentsCount) {
+        List<Payment> payments = new ArrayList<>();
+        for (int i = 0; i < paymentsCount; i++) {
+            List<Long> coPayers = new ArrayList<>();
+            for (long memberId = 1; memberId <= membersCount; memberId++) {
+                if (random.nextBoolean()) {
+                    coPayers.add(memberId);
+                }
+            }
+            if (coPayers.isEmpty()) {
+                coPayers.add(1L + random.nextInt(membersCount));
+            }
+            payments.add(Payment.builder()
+                    .creatorId(1L + random.nextInt(membersCount + 1))
+                    .coPayers(LongIdSet.copyOf(coPayers))
+                    .price(1L + random.nextInt(100_000))
+                    .build());
+        }
+        return payments;
+    }
+
+    private static Map<Long, Long> calculateValuesWithNestedLoop(Long requesterId, List<Payment> payments, List<Long> otherMembersIds) {
+        Map<Long, Long> values = new HashMap<>();
+        otherMembersIds.forEach(memberId -> {
+            values.put(memberId, 0L);
+            payments.forEach(payment -> {
+                long value = 0L;
+                LongIdSet coPayers = LongIdSet.copyOf(payment.getCoPayers());
+                if (coPayers.contains(requesterId) && coPayers.contains(memberId)) {
+                    if (payment.getCreatorId().equals(requesterId)) {
+                        value = PaymentsCalculationHelper.shareOf(payment.getPrice(), coPayers.size(), coPayers.indexOf(memberId));
+                    } else if (payment.getCreatorId().equals(memberId)) {
+                        value = -PaymentsCalculationHelper.shareOf(payment.getPrice(), coPayers.size(), coPayers.indexOf(requesterId));
+                    }
+                }
+                values.put(memberId, values.get(memberId) + value);
+            });
+        });
+        return values;
+    }
+}
@@ -0,0 +1,166 @@
+package com.eleks.groupservice.service;
+
+import com.eleks.groupservice.client.UserClient;
+import com.eleks.groupservice.client.UserLookupResult;
+import com.eleks.groupservice.domain.Currency;
+import com.eleks.groupservice.dto.GroupRequestDto;
+import com.eleks.groupservice.dto.GroupResponseDto;
+import com.eleks.groupservice.dto.PaymentResponseDto;
+import com.eleks.groupservice.dto.UserDto;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Counts the SQL statements issued behind every read endpoint, so a fetch plan which starts loading whole
+ * payment histories or issues a select per row fails here.
+ */
+@ExtendWith(SpringExtension.class)
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({GroupServiceImpl.class, PaymentServiceImpl.class, BalanceLedgerServiceImpl.class,
+        BalanceSnapshotServiceImpl.class, ServiceStatementCountTest.CalculationPoolConfig.class})
+@ImportAutoConfiguration(ValidationAutoConfiguration.class)
+@Sql(scripts = "classpath:scripts/add_test_group_and_two_payments.sql")
+class ServiceStatementCountTest {
+
+    @Autowired
+    private GroupService groupService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockBean
+    private UserClient client;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        entityManager.clear();
+        statistics = entityManager.getEntityManager()
+                .getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void getGroup_ShouldLoadGroupWithMembersInOneStatementWithoutPayments() {
+        Optional<GroupResponseDto> group = groupService.getGroup(1L);
+
+        assertTrue(group.isPresent());
+        assertEquals(Arrays.asList(1L, 2L), group.get().getMembers());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void getPayments_ShouldJoinFetchPaymentsAndLoadCoPayersInOneStatement() {
+        Optional<List<PaymentResponseDto>> payments = paymentService.getPayments(1L);
+
+        assertTrue(payments.isPresent());
+        assertEquals(2, payments.get().size());
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getGroupMembersStatus_ShouldCheckMembershipThenReadGroupAndLedgerOnly() {
+        when(client.getUsersOrLastKnownAsync(anyList())).thenReturn(completedFuture(new UserLookupResult(Arrays.asList(
+                UserDto.builder().id(2L).username("second").build()), false)));
+
+        groupService.getGroupMembersStatus(1L, 1L);
+
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void getSettlement_ShouldQueryPaymentsOnceInsteadOfGroupCollection() {
+        groupService.getSettlement(1L);
+
+        assertEquals(4, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getUserBalances_ShouldReadGroupsMembersAndLedgerOnly() {
+        when(client.getUsersOrLastKnownAsync(anyList())).thenReturn(completedFuture(new UserLookupResult(Arrays.asList(
+                UserDto.builder().id(2L).username("second").build()), false)));
+
+        groupService.getUserBalances(1L);
+
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getEntityLoadCount());
+    }
+
+    @TestConfiguration
+    static class CalculationPoolConfig {
+
+        @Bean(destroyMethod = "shutdown")
+        public ForkJoinPool balanceCalculationPool() {
+            return new ForkJoinPool(2);
+        }
+    }
+
+    @Test
+    void getPayment_ShouldReadOnePaymentByKeyWithoutGroupHistory() {
+        Optional<PaymentResponseDto> payment = paymentService.getPayment(1L, 2L);
+
+        assertTrue(payment.isPresent());
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(2, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void deleteGroupById_ShouldDeleteGroupWithPaymentsInConstantNumberOfStatements() {
+        groupService.deleteGroupById(1L);
+
+        assertEquals(7, statistics.getPrepareStatementCount());
+        assertFalse(groupService.getGroup(1L).isPresent());
+    }
+
+    @Test
+    void editGroup_ShouldUpdateWithVersionCheckWithoutReadingGroup() {
+        when(client.areUserIdsValid(eq(Arrays.asList(1L, 2L, 3L)))).thenReturn(true);
+        GroupRequestDto request = GroupRequestDto.builder()
+                .groupName("renamed")
+                .currency(Currency.EUR)
+                .members(Arrays.asList(1L, 2L, 3L))
+                .build();
+
+        GroupResponseDto edited = groupService.editGroup(1L, 0L, request);
+
+        assertEquals(1L, edited.getVersion());
+        // the member rows go in one JDBC batch, which Hibernate doesn't count
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        entityManager.clear();
+        assertEquals(Arrays.asList(1L, 2L, 3L), groupService.getGroup(1L).get().getMembers());
+    }
+}
@@ -0,0 +1,121 @@
+package com.eleks.groupservice.service;
+
+import com.eleks.groupservice.service.SettlementHelper.Transfer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SettlementHelperTest {
+
+    @Test
+    public void planTransfers_NoPositions_ReturnEmptyList() {
+        List<Transfer> transfers = SettlementHelper.planTransfers(Collections.emptyMap());
+
+        assertTrue(transfers.isEmpty());
+    }
+
+    @Test
+    public void planTransfers_OnlyZeroPositions_ReturnEmptyList() {
+        Map<Long, Long> positions = new HashMap<>();
+        positions.put(1L, 0L);
+        positions.put(2L, 0L);
+
+        List<Transfer> transfers = SettlementHelper.planTransfers(positions);
+
+        assertTrue(transfers.isEmpty());
+    }
+
+    @Test
+    public void planTransfers_OneCreditorTwoDebtors_ReturnTransferFromEveryDebtor() {
+        Map<Long, Long> positions = new HashMap<>();
+        positions.put(1L, 300L);
+        positions.put(2L, -100L);
+        positions.put(3L, -200L);
+
+        List<Transfer> transfers = SettlementHelper.planTransfers(positions);
+
+        assertEquals(2, transfers.size());
+        assertTrue(transfers.contains(new Transfer(2L, 1L, 100L)));
+        assertTrue(transfers.contains(new Transfer(3L, 1L, 200L)));
+    }
+
+    @Test
+    public void planTransfers_GreedyMatchingIsNotOptimal_ReturnMinimalNumberOfTransfers() {
+        Map<Long, Long> positions = new HashMap<>();
+        positions.put(1L, 400L);
+        positions.put(2L, -200L);
+        positions.put(3L, -400L);
+        positions.put(4L, -300L);
+        positions.put(5L, 500L);
+
+        List<Transfer> transfers = SettlementHelper.planTransfers(positions);
+
+        assertEquals(3, transfers.size());
+        assertTrue(transfers.contains(new Transfer(3L, 1L, 400L)));
+        assertSettled(positions, transfers);
+    }
+
+    @Test
+    public void planTransfers_MoreParticipantsThanExactModeAllows_ReturnGreedyTransfersSettlingEveryone() {
+        Random random = new Random(7L);
+        Map<Long, Long> positions = new HashMap<>();
+        long sum = 0;
+        for (long userId = 1; userId < 100; userId++) {
+            long amount = random.nextInt(20_000) - 10_000;
+            positions.put(userId, amount);
+            sum += amount;
+        }
+        positions.put(100L, -sum);
+
+        List<Transfer> transfers = SettlementHelper.planTransfers(positions);
+
+        assertTrue(transfers.size() < positions.size());
+        assertSettled(positions, transfers);
+    }
+
+    @Test
+    public void planTransfers_RandomSmallGroups_ExactModeNeverNeedsMoreTransfersThanGreedy() {
+        Random random = new Random(42L);
+        for (int round = 0; round < 200; round++) {
+            int participants = 2 + random.nextInt(SettlementHelper.EXACT_MODE_MAX_PARTICIPANTS - 1);
+            Map<Long, Long> positions = new HashMap<>();
+            long sum = 0;
+            for (long userId = 1; userId < participants; userId++) {
+                long amount = (random.nextInt(13) - 6) * 100L;
+                positions.put(userId, amount);
+                sum += amount;
+            }
+            positions.put((long) participants, -sum);
+
+            List<Transfer> exact = SettlementHelper.planTransfers(positions);
+            List<Transfer> greedy = SettlementHelper.planGreedyTransfers(toPositions(positions));
+
+            assertTrue(exact.size() <= greedy.size());
+            assertSettled(positions, exact);
+        }
+    }
+
+    private static List<SettlementHelper.Position> toPositions(Map<Long, Long> positions) {
+        List<SettlementHelper.Position> result = new ArrayList<>();
+        positions.forEach((userId, amount) -> result.add(new SettlementHelper.Position(userId, amount)));
+        return result;
+    }
+
+    private static void assertSettled(Map<Long, Long> positions, List<Transfer> transfers) {
+        Map<Long, Long> remaining = new HashMap<>(positions);
+        transfers.forEach(transfer -> {
+            assertTrue(transfer.getAmount() > 0);
+            remaining.merge(transfer.getFromUserId(), transfer.getAmount(), Long::sum);
+            remaining.merge(transfer.getToUserId(), -transfer.getAmount(), Long::sum);
+        });
+        remaining.values().forEach(amount -> assertEquals(0L, amount.longValue()));
+    }
+}
@@ -0,0 +1,30 @@
+INSERT INTO user_group(id, group_name, currency, version)
+SELECT x, CONCAT('group', x), 'UAH', 0
+FROM SYSTEM_RANGE(1, 1000);
+
+INSERT INTO group_member(group_id, user_id)
+SELECT g.x, g.x + m.x
+FROM SYSTEM_RANGE(1, 1000) g, SYSTEM_RANGE(0, 4) m;
+
+INSERT INTO payment(id, payment_description, price, creator_id, group_id, timestamp)
+SELECT x, CONCAT('payment', x), 1000 + MOD(x, 100), MOD(x, 1000) + 1, MOD(x, 1000) + 1,
+       DATEADD('SECOND', x, TIMESTAMP '2020-01-01 00:00:00')
+FROM SYSTEM_RANGE(1, 50000);
+
+INSERT INTO payment_co_payer(payment_id, user_id)
+SELECT p.id, p.group_id + c.x
+FROM payment p, SYSTEM_RANGE(0, 1) c;
+
+INSERT INTO group_balance(group_id, user_a, user_b, amount)
+SELECT g.x, g.x, g.x + m.x, 100
+FROM SYSTEM_RANGE(1, 1000) g, SYSTEM_RANGE(1, 4) m;
+
+INSERT INTO balance_snapshot(group_id, last_payment_id, created_at)
+SELECT x, 25000 + x, TIMESTAMP '2020-01-01 12:00:00'
+FROM SYSTEM_RANGE(1, 500);
+
+INSERT INTO balance_snapshot_entry(group_id, user_a, user_b, amount)
+SELECT g.x, g.x, g.x + m.x, 100
+FROM SYSTEM_RANGE(1, 500) g, SYSTEM_RANGE(1, 4) m;
+
+ANALYZE;
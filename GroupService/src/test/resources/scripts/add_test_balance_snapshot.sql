@@ -0,0 +1,8 @@
+INSERT INTO balance_snapshot(group_id, last_payment_id, created_at)
+VALUES (1, 1, '2013-01-01T00:00:00Z');
+
+INSERT INTO balance_snapshot_entry(group_id, user_a, user_b, amount)
+VALUES (1, 1, 2, 11900),
+       (1, 2, 1, -11900),
+       (1, 1, 3, 11900),
+       (1, 3, 1, -11900);
\ No newline at end of file
@@ -1,2 +1,6 @@
-INSERT INTO user_group(id, group_name, currency, members)
-VALUES (1, 'testGroup', 'UAH', '1;2');
\ No newline at end of file
+INSERT INTO user_group(id, group_name, currency)
+VALUES (1, 'testGroup', 'UAH');
+
+INSERT INTO group_member(group_id, user_id)
+VALUES (1, 1),
+       (1, 2);
\ No newline at end of file
@@ -1,5 +1,14 @@
-INSERT INTO user_group(id, group_name, currency, members)
-VALUES (1, 'testGroup', 'UAH', '1;2');
+INSERT INTO user_group(id, group_name, currency)
+VALUES (1, 'testGroup', 'UAH');
 
-INSERT INTO payment(id, payment_description, price, co_payers, creator_id, group_id, timestamp)
-VALUES (1, 'testing payment description', 250.0, '1;2;3', 1, 1, '2010-01-01T00:00:00Z');
\ No newline at end of file
+INSERT INTO group_member(group_id, user_id)
+VALUES (1, 1),
+       (1, 2);
+
+INSERT INTO payment(id, payment_description, price, creator_id, group_id, timestamp)
+VALUES (1, 'testing payment description', 25000, 1, 1, '2010-01-01T00:00:00Z');
+
+INSERT INTO payment_co_payer(payment_id, user_id)
+VALUES (1, 1),
+       (1, 2),
+       (1, 3);
\ No newline at end of file
@@ -0,0 +1,21 @@
+INSERT INTO user_group(id, group_name, currency)
+VALUES (1, 'testGroup', 'UAH');
+
+INSERT INTO group_member(group_id, user_id)
+VALUES (1, 1),
+       (1, 2),
+       (1, 3);
+
+INSERT INTO payment(id, payment_description, price, creator_id, group_id, timestamp)
+VALUES (1, 'first and second', 10000, 1, 1, '2012-01-01T00:00:00Z'),
+       (2, 'second and third', 20000, 2, 1, '2013-01-01T00:00:00Z'),
+       (3, 'everyone', 30000, 3, 1, '2014-01-01T00:00:00Z');
+
+INSERT INTO payment_co_payer(payment_id, user_id)
+VALUES (1, 1),
+       (1, 2),
+       (2, 2),
+       (2, 3),
+       (3, 1),
+       (3, 2),
+       (3, 3);
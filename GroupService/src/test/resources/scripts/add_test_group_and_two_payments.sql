@@ -1,6 +1,18 @@
-INSERT INTO user_group(id, group_name, currency, members)
-VALUES (1, 'testGroup', 'UAH', '1;2');
+INSERT INTO user_group(id, group_name, currency)
+VALUES (1, 'testGroup', 'UAH');
 
-INSERT INTO payment(id, payment_description, price, co_payers, creator_id, group_id, timestamp)
-VALUES (1, 'description 1', 357.0, '1;2;3', 1, 1, '2012-01-01T00:00:00Z'),
-       (2, 'second description', 400.0, '1;2;3', 1, 1, '2019-01-01T00:00:00Z');
\ No newline at end of file
+INSERT INTO group_member(group_id, user_id)
+VALUES (1, 1),
+       (1, 2);
+
+INSERT INTO payment(id, payment_description, price, creator_id, group_id, timestamp)
+VALUES (1, 'description 1', 35700, 1, 1, '2012-01-01T00:00:00Z'),
+       (2, 'second description', 40000, 1, 1, '2019-01-01T00:00:00Z');
+
+INSERT INTO payment_co_payer(payment_id, user_id)
+VALUES (1, 1),
+       (1, 2),
+       (1, 3),
+       (2, 1),
+       (2, 2),
+       (2, 3);
\ No newline at end of file
@@ -0,0 +1,5 @@
+INSERT INTO group_balance(group_id, user_a, user_b, amount)
+VALUES (1, 1, 2, 12500),
+       (1, 2, 1, -12500),
+       (1, 1, 3, 12500),
+       (1, 3, 1, -12500);
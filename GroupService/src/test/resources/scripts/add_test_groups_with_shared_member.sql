@@ -0,0 +1,9 @@
+INSERT INTO user_group(id, group_name, currency)
+VALUES (1, 'testGroup', 'UAH'),
+       (2, 'otherGroup', 'USD');
+
+INSERT INTO group_member(group_id, user_id)
+VALUES (1, 1),
+       (1, 2),
+       (2, 1),
+       (2, 3);
@@ -0,0 +1,20 @@
+INSERT INTO user_group(id, group_name, currency)
+VALUES (1, 'testGroup', 'UAH');
+
+INSERT INTO group_member(group_id, user_id)
+VALUES (1, 1),
+       (1, 2);
+
+INSERT INTO payment(id, payment_description, price, creator_id, group_id, timestamp)
+VALUES (1000000, 'payment from a later id block', 20000, 1, 1, '2019-01-01T00:00:00Z');
+
+INSERT INTO payment_co_payer(payment_id, user_id)
+VALUES (1000000, 1),
+       (1000000, 2);
+
+INSERT INTO balance_snapshot(group_id, last_payment_id, created_at)
+VALUES (1, 1000000, '2019-01-02T00:00:00Z');
+
+INSERT INTO balance_snapshot_entry(group_id, user_a, user_b, amount)
+VALUES (1, 1, 2, 10000),
+       (1, 2, 1, -10000);
@@ -11,6 +11,7 @@ import com.eleks.userservice.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.annotation.PostConstruct;
 import java.time.LocalDate;
@@ -31,11 +32,13 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<UserResponseDto> getUser(Long id) {
         return repository.findById(id).map(UserMapper::toDto);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<UserResponseDto> getUsers() {
         return repository.findAll()
                 .stream()
@@ -70,6 +73,7 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<UserResponseDto> searchUsers(UserSearchDto searchDto) {
         List<User> users = repository.findAllByIdIn(searchDto.getUserIds());
         return users.stream().map(UserMapper::toDto).collect(Collectors.toList());
@@ -0,0 +1,49 @@
+package com.eleks.groupservice.benchmark;
+
+import com.eleks.groupservice.domain.Group;
+import com.eleks.groupservice.domain.Payment;
+import com.eleks.groupservice.dto.GroupResponseDto;
+import com.eleks.groupservice.dto.PaymentResponseDto;
+import com.eleks.groupservice.mapper.GroupMapper;
+import com.eleks.groupservice.mapper.PaymentMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MapperBenchmark {
+
+    @Param({"10", "500"})
+    private int membersCount;
+
+    @Param({"3", "20"})
+    private int coPayersPerPayment;
+
+    private Group group;
+    private Payment payment;
+
+    @Setup
+    public void setUp() {
+        group = PaymentsDataGenerator.generateGroup(membersCount, 1, coPayersPerPayment);
+        payment = group.getPayments().get(0);
+    }
+
+    @Benchmark
+    public PaymentResponseDto paymentToDto() {
+        return PaymentMapper.toDto(payment);
+    }
+
+    @Benchmark
+    public GroupResponseDto groupToDto() {
+        return GroupMapper.toDto(group);
+    }
+}
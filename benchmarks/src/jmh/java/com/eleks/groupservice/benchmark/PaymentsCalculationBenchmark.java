@@ -0,0 +1,83 @@
+package com.eleks.groupservice.benchmark;
+
+import com.eleks.groupservice.domain.Group;
+import com.eleks.groupservice.domain.LongIdSet;
+import com.eleks.groupservice.domain.Payment;
+import com.eleks.groupservice.service.BalanceMatrix;
+import com.eleks.groupservice.service.PaymentsCalculationHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the balance calculations over entity-shaped payments. The calculations behind the settlement and balances
+ * endpoints get the pool and threshold {@code GroupServiceImpl} uses. Every invocation converts the boxed co-payer
+ * sets, as a request does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PaymentsCalculationBenchmark {
+
+    private static final int POOL_SIZE = 4;
+    private static final int PARALLEL_THRESHOLD = 20_000;
+
+    @Param({"10", "100", "500"})
+    private int membersCount;
+
+    @Param({"1000", "100000"})
+    private int paymentsCount;
+
+    @Param({"3", "20"})
+    private int coPayersPerPayment;
+
+    private ForkJoinPool pool;
+    private List<Payment> payments;
+    private List<Long> membersIds;
+    private Long requesterId;
+    private List<Long> otherMembersIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pool = new ForkJoinPool(POOL_SIZE);
+        Group group = PaymentsDataGenerator.generateGroup(membersCount, paymentsCount, coPayersPerPayment);
+        payments = Collections.unmodifiableList(group.getPayments());
+        LongIdSet members = LongIdSet.copyOf(group.getMembers());
+        membersIds = members.toList();
+        requesterId = members.get(0);
+        otherMembersIds = members.without(requesterId).toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public Map<Long, Long> calculateValues() {
+        return PaymentsCalculationHelper.calculateValues(requesterId, payments, otherMembersIds);
+    }
+
+    @Benchmark
+    public Map<Long, Long> calculateNetPositions() {
+        return PaymentsCalculationHelper.calculateNetPositions(payments, pool, PARALLEL_THRESHOLD);
+    }
+
+    @Benchmark
+    public BalanceMatrix calculateBalanceMatrix() {
+        return PaymentsCalculationHelper.calculateBalanceMatrix(payments, membersIds, pool, PARALLEL_THRESHOLD);
+    }
+}
@@ -0,0 +1,69 @@
+package com.eleks.groupservice.benchmark;
+
+import com.eleks.groupservice.domain.Currency;
+import com.eleks.groupservice.domain.Group;
+import com.eleks.groupservice.domain.Payment;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Builds deterministic groups for benchmarks: members get ids 1..membersCount, and every payment is created by a
+ * random member and shared by {@code coPayersPerPayment} distinct random members, the creator included. Members and
+ * co-payers are kept in {@link HashSet}s, as Hibernate loads them.
+ */
+public class PaymentsDataGenerator {
+
+    private static final long SEED = 42L;
+
+    public static Group generateGroup(int membersCount, int paymentsCount, int coPayersPerPayment) {
+        Random random = new Random(SEED);
+        long[] membersIds = new long[membersCount];
+        Set<Long> members = new HashSet<>();
+        for (int i = 0; i < membersCount; i++) {
+            membersIds[i] = i + 1;
+            members.add(membersIds[i]);
+        }
+
+        Group group = Group.builder()
+                .id(1L)
+                .groupName("benchmark")
+                .currency(Currency.UAH)
+                .members(members)
+                .build();
+
+        List<Payment> payments = new ArrayList<>(paymentsCount);
+        int fanOut = Math.min(coPayersPerPayment, membersCount);
+        for (int i = 0; i < paymentsCount; i++) {
+            long creatorId = membersIds[random.nextInt(membersCount)];
+            payments.add(Payment.builder()
+                    .id(i + 1L)
+                    .paymentDescription("payment " + i)
+                    .price(1L + random.nextInt(1_000_000))
+                    .creatorId(creatorId)
+                    .coPayers(generateCoPayers(random, membersIds, creatorId, fanOut))
+                    .timestamp(Instant.ofEpochSecond(1_500_000_000L + i))
+                    .group(group)
+                    .build());
+        }
+        group.setPayments(payments);
+        return group;
+    }
+
+    private static Set<Long> generateCoPayers(Random random, long[] membersIds, long creatorId, int fanOut) {
+        long[] pool = membersIds.clone();
+        Set<Long> coPayers = new HashSet<>();
+        coPayers.add(creatorId);
+        for (int i = pool.length - 1; coPayers.size() < fanOut; i--) {
+            int picked = random.nextInt(i + 1);
+            long candidate = pool[picked];
+            pool[picked] = pool[i];
+            coPayers.add(candidate);
+        }
+        return coPayers;
+    }
+}
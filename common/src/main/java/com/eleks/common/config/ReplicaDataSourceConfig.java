@@ -0,0 +1,77 @@
+package com.eleks.common.config;
+
+import com.eleks.common.datasource.ReadYourWritesFilter;
+import com.eleks.common.datasource.ReplicaLagMonitor;
+import com.eleks.common.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Enabled by {@code spring.datasource.replica.url}. Keeps {@code spring.datasource.*} as the primary pool, adds a
+ * replica pool configured by {@code spring.datasource.replica.*} and exposes a data source which sends read-only
+ * transactions to the replica while its lag stays within {@code spring.datasource.replica.max-lag-seconds}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.datasource.replica.url")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(Environment environment, DataSourceProperties primaryProperties) throws Exception {
+        DataSourceProperties properties = Binder.get(environment)
+                .bind("spring.datasource.replica", DataSourceProperties.class)
+                .orElseGet(DataSourceProperties::new);
+        properties.setBeanClassLoader(getClass().getClassLoader());
+        if (properties.getDriverClassName() == null) {
+            properties.setDriverClassName(primaryProperties.determineDriverClassName());
+        }
+        properties.afterPropertiesSet();
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") DataSource replica,
+                                               @Value("${spring.datasource.replica.lag-query:SHOW SLAVE STATUS}") String lagQuery,
+                                               @Value("${spring.datasource.replica.lag-column:Seconds_Behind_Master}") String lagColumn,
+                                               @Value("${spring.datasource.replica.max-lag-seconds:5}") long maxLagSeconds,
+                                               @Value("${spring.datasource.replica.lag-check-interval-ms:1000}") long checkIntervalMillis) {
+        return new ReplicaLagMonitor(replica, lagQuery, lagColumn, maxLagSeconds, checkIntervalMillis);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 ReplicaLagMonitor lagMonitor) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replica, lagMonitor));
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter() {
+        FilterRegistrationBean<ReadYourWritesFilter> registration = new FilterRegistrationBean<>(new ReadYourWritesFilter());
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
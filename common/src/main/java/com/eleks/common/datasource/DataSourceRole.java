@@ -0,0 +1,5 @@
+package com.eleks.common.datasource;
+
+public enum DataSourceRole {
+    PRIMARY, REPLICA
+}
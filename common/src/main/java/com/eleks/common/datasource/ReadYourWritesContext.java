@@ -0,0 +1,49 @@
+package com.eleks.common.datasource;
+
+/**
+ * Remembers that the current unit of work has run a read-write transaction, so its later read-only transactions are
+ * routed to the primary and see their own writes. A unit of work is a request, opened by {@link ReadYourWritesFilter},
+ * or a piece of background work passed to {@link #run(Runnable)}. Writes outside of any unit of work aren't
+ * remembered, so pooled and scheduler threads never carry the flag over to unrelated work.
+ */
+public final class ReadYourWritesContext {
+
+    private static final ThreadLocal<Boolean> WRITTEN = new ThreadLocal<>();
+
+    private ReadYourWritesContext() {
+    }
+
+    /**
+     * Runs the work as one unit of work, or as part of the current one when it is called inside of it.
+     */
+    public static void run(Runnable work) {
+        if (WRITTEN.get() != null) {
+            work.run();
+            return;
+        }
+        open();
+        try {
+            work.run();
+        } finally {
+            close();
+        }
+    }
+
+    public static void markWritten() {
+        if (WRITTEN.get() != null) {
+            WRITTEN.set(Boolean.TRUE);
+        }
+    }
+
+    public static boolean hasWritten() {
+        return Boolean.TRUE.equals(WRITTEN.get());
+    }
+
+    static void open() {
+        WRITTEN.set(Boolean.FALSE);
+    }
+
+    static void close() {
+        WRITTEN.remove();
+    }
+}
@@ -0,0 +1,97 @@
+package com.eleks.common.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the replication lag of the replica once per check interval on a background thread, so requests only read
+ * the last result. A replica which lags more than the tolerance, doesn't report its lag or can't be queried is treated
+ * as unusable until the next check, and so is one whose last check is older than two intervals.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private final DataSource replica;
+    private final String lagQuery;
+    private final String lagColumn;
+    private final long maxLagSeconds;
+    private final long checkIntervalMillis;
+
+    private ScheduledExecutorService executor;
+    private volatile boolean usable;
+    private volatile long checkedAt;
+
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, String lagColumn, long maxLagSeconds,
+                             long checkIntervalMillis) {
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.lagColumn = lagColumn;
+        this.maxLagSeconds = maxLagSeconds;
+        this.checkIntervalMillis = checkIntervalMillis;
+    }
+
+    public synchronized void start() {
+        if (executor == null) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("replica-lag-monitor-");
+            threadFactory.setDaemon(true);
+            executor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+            executor.scheduleWithFixedDelay(this::check, 0, checkIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    public boolean isReplicaUsable() {
+        return usable && System.currentTimeMillis() - checkedAt < 2 * checkIntervalMillis;
+    }
+
+    public void check() {
+        boolean tolerable;
+        try {
+            tolerable = isLagTolerable();
+        } catch (RuntimeException exception) {
+            log.warn("Replica lag check failed, reading from primary", exception);
+            tolerable = false;
+        }
+        checkedAt = System.currentTimeMillis();
+        usable = tolerable;
+    }
+
+    private boolean isLagTolerable() {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet status = statement.executeQuery(lagQuery)) {
+            if (!status.next()) {
+                log.warn("Replica doesn't report replication status, reading from primary");
+                return false;
+            }
+            long lagSeconds = status.getLong(lagColumn);
+            if (status.wasNull()) {
+                log.warn("Replica replication is stopped, reading from primary");
+                return false;
+            }
+            if (lagSeconds > maxLagSeconds) {
+                log.warn("Replica lag {}s exceeds {}s, reading from primary", lagSeconds, maxLagSeconds);
+                return false;
+            }
+            return true;
+        } catch (SQLException exception) {
+            log.warn("Replica lag check failed, reading from primary: {}", exception.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.eleks.common.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReplicaRoutingDataSourceTest {
+
+    private DataSource primary;
+    private DataSource replica;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnlyTransaction;
+    private TransactionTemplate readWriteTransaction;
+    private ReplicaLagMonitor lagMonitor;
+
+    @BeforeEach
+    public void setUp() {
+        primary = new DriverManagerDataSource("jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1", "sa", "sa");
+        replica = new DriverManagerDataSource("jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1", "sa", "sa");
+        createNodeTable(primary, "primary");
+        createNodeTable(replica, "replica");
+        new JdbcTemplate(replica).execute("CREATE TABLE replica_status(lag_seconds BIGINT)");
+        setReplicaLag(1L);
+        useLagMonitor(new ReplicaLagMonitor(replica, "SELECT lag_seconds FROM replica_status", "lag_seconds", 5, 60_000));
+        lagMonitor.check();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        lagMonitor.stop();
+        ReadYourWritesContext.close();
+        new JdbcTemplate(primary).execute("DROP ALL OBJECTS");
+        new JdbcTemplate(replica).execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    public void readOnlyTransaction_ReplicaIsInSync_ReadFromReplica() {
+        assertEquals("replica", readOnlyTransaction.execute(status -> currentNode()));
+    }
+
+    @Test
+    public void readWriteTransaction_ReadFromPrimary() {
+        assertEquals("primary", readWriteTransaction.execute(status -> currentNode()));
+    }
+
+    @Test
+    public void noTransaction_ReadFromPrimary() {
+        assertEquals("primary", currentNode());
+    }
+
+    @Test
+    public void readOnlyTransaction_AfterWriteInSameUnitOfWork_ReadFromPrimaryUntilItEnds() {
+        List<String> nodes = new ArrayList<>();
+
+        ReadYourWritesContext.run(() -> {
+            readWriteTransaction.execute(status -> jdbcTemplate.update("UPDATE node SET name = name"));
+            nodes.add(readOnlyTransaction.execute(status -> currentNode()));
+            ReadYourWritesContext.run(() -> nodes.add(readOnlyTransaction.execute(status -> currentNode())));
+        });
+        nodes.add(readOnlyTransaction.execute(status -> currentNode()));
+
+        assertEquals(Arrays.asList("primary", "primary", "replica"), nodes);
+    }
+
+    @Test
+    public void readOnlyTransaction_AfterWriteOutsideUnitOfWork_ReadFromReplica() {
+        readWriteTransaction.execute(status -> jdbcTemplate.update("UPDATE node SET name = name"));
+
+        assertFalse(ReadYourWritesContext.hasWritten());
+        assertEquals("replica", readOnlyTransaction.execute(status -> currentNode()));
+    }
+
+    @Test
+    public void readOnlyTransaction_UnitOfWorkFailed_DontKeepWrittenFlag() {
+        assertThrows(IllegalStateException.class, () -> ReadYourWritesContext.run(() -> {
+            readWriteTransaction.execute(status -> jdbcTemplate.update("UPDATE node SET name = name"));
+            throw new IllegalStateException();
+        }));
+
+        assertEquals("replica", readOnlyTransaction.execute(status -> currentNode()));
+    }
+
+    @Test
+    public void readOnlyTransaction_ReplicaLagExceedsTolerance_ReadFromPrimary() {
+        setReplicaLag(6L);
+        lagMonitor.check();
+
+        assertEquals("primary", readOnlyTransaction.execute(status -> currentNode()));
+    }
+
+    @Test
+    public void readOnlyTransaction_ReplicationIsStopped_ReadFromPrimary() {
+        setReplicaLag(null);
+        lagMonitor.check();
+
+        assertEquals("primary", readOnlyTransaction.execute(status -> currentNode()));
+    }
+
+    @Test
+    public void readOnlyTransaction_LagCheckFails_ReadFromPrimary() {
+        useLagMonitor(new ReplicaLagMonitor(replica, "SELECT lag_seconds FROM missing_table", "lag_seconds", 5, 60_000));
+        lagMonitor.check();
+
+        assertEquals("primary", readOnlyTransaction.execute(status -> currentNode()));
+    }
+
+    @Test
+    public void readOnlyTransaction_LagNotCheckedYet_ReadFromPrimary() {
+        useLagMonitor(new ReplicaLagMonitor(replica, "SELECT lag_seconds FROM replica_status", "lag_seconds", 5, 60_000));
+
+        assertEquals("primary", readOnlyTransaction.execute(status -> currentNode()));
+    }
+
+    @Test
+    public void readOnlyTransaction_LagChangedSinceLastCheck_KeepLastResultUntilNextCheck() {
+        setReplicaLag(60L);
+
+        assertEquals("replica", readOnlyTransaction.execute(status -> currentNode()));
+
+        lagMonitor.check();
+        assertEquals("primary", readOnlyTransaction.execute(status -> currentNode()));
+    }
+
+    @Test
+    public void start_ReplicaIsInSync_CheckLagInBackground() throws InterruptedException {
+        useLagMonitor(new ReplicaLagMonitor(replica, "SELECT lag_seconds FROM replica_status", "lag_seconds", 5, 10));
+
+        lagMonitor.start();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!lagMonitor.isReplicaUsable() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals("replica", readOnlyTransaction.execute(status -> currentNode()));
+    }
+
+    private void useLagMonitor(ReplicaLagMonitor lagMonitor) {
+        this.lagMonitor = lagMonitor;
+        DataSource dataSource = new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replica, lagMonitor));
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readWriteTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    private String currentNode() {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private void setReplicaLag(Long lagSeconds) {
+        JdbcTemplate replicaTemplate = new JdbcTemplate(replica);
+        replicaTemplate.update("DELETE FROM replica_status");
+        replicaTemplate.update("INSERT INTO replica_status(lag_seconds) VALUES (?)", lagSeconds);
+    }
+
+    private static void createNodeTable(DataSource dataSource, String name) {
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.execute("CREATE TABLE node(name VARCHAR(20))");
+        template.update("INSERT INTO node(name) VALUES (?)", name);
+    }
+}